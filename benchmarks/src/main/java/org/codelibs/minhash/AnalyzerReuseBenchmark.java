@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares one analyzer shared by threads with an analyzer created for each request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AnalyzerReuseBenchmark {
+
+    @Param({ "128" })
+    public int num;
+
+    @Param({ "100" })
+    public int numOfTokens;
+
+    private Analyzer sharedAnalyzer;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        sharedAnalyzer = MinHash.createAnalyzer(WhitespaceTokenizer::new, 1, 0, num);
+        text = BenchmarkTexts.create(numOfTokens, 50000, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sharedAnalyzer.close();
+    }
+
+    @Benchmark
+    public byte[] shared() throws IOException {
+        return MinHash.calculate(sharedAnalyzer, text);
+    }
+
+    @Benchmark
+    public byte[] perRequest() throws IOException {
+        try (Analyzer analyzer = MinHash.createAnalyzer(new WhitespaceTokenizer(), 1, 0, num)) {
+            return MinHash.calculate(analyzer, text);
+        }
+    }
+}
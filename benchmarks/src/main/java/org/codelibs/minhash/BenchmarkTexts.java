@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.util.Random;
+
+/**
+ * Generates texts for benchmarks.
+ * Tokens follow a Zipf distribution, like words in natural language.
+ *
+ * @author shinsuke
+ *
+ */
+public final class BenchmarkTexts {
+
+    private BenchmarkTexts() {
+    }
+
+    /**
+     * Creates a text with space-separated tokens.
+     *
+     * @param numOfTokens the number of tokens
+     * @param vocabularySize the number of distinct tokens
+     * @param seed a random seed
+     * @return a text
+     */
+    public static String create(final int numOfTokens, final int vocabularySize, final long seed) {
+        final int[] ids = zipf(numOfTokens, vocabularySize, 1.0, seed);
+        final StringBuilder buf = new StringBuilder(numOfTokens * 8);
+        for (final int id : ids) {
+            buf.append("term").append(id).append(' ');
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Samples token ids from a Zipf distribution.
+     *
+     * @param size the number of samples
+     * @param vocabularySize the number of distinct ids
+     * @param exponent the exponent of the distribution
+     * @param seed a random seed
+     * @return ids from 0 to vocabularySize - 1 (0 is the most frequent)
+     */
+    public static int[] zipf(final int size, final int vocabularySize, final double exponent, final long seed) {
+        final double[] cumulative = new double[vocabularySize];
+        double sum = 0;
+        for (int i = 0; i < vocabularySize; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        final Random random = new Random(seed);
+        final int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            final double value = random.nextDouble() * sum;
+            int index = java.util.Arrays.binarySearch(cumulative, value);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            ids[i] = Math.min(index, vocabularySize - 1);
+        }
+        return ids;
+    }
+}
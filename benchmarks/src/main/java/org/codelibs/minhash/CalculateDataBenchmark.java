@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link MinHash#calculate(MinHash.Data[])}, which concatenates signatures of several fields.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculateDataBenchmark {
+
+    @Param({ "1", "4" })
+    public int hashBit;
+
+    @Param({ "100" })
+    public int numOfTokens;
+
+    private MinHash.Data[] data;
+
+    @Setup
+    public void setup() {
+        final int[] nums = { 128, 64, 32, 16 };
+        data = new MinHash.Data[nums.length];
+        for (int i = 0; i < nums.length; i++) {
+            final Analyzer analyzer = MinHash.createAnalyzer(hashBit, i, nums[i]);
+            data[i] = MinHash.newData(analyzer, BenchmarkTexts.create(numOfTokens, 50000, i), hashBit * nums[i]);
+        }
+    }
+
+    @Benchmark
+    public byte[] calculate() throws IOException {
+        return MinHash.calculate(data);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.codelibs.minhash.analysis.HashMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link MinHash#calculateCharGrams(String, int, int, int, int, HashMode)}
+ * and an analyzer with {@link NGramTokenizer} for a text without spaces.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharGramBenchmark {
+
+    @Param({ "128" })
+    public int num;
+
+    @Param({ "2", "3" })
+    public int k;
+
+    @Param({ "10000" })
+    public int numOfChars;
+
+    @Param({ "INDEPENDENT", "DOUBLE_HASHING" })
+    public HashMode hashMode;
+
+    private Analyzer ngramAnalyzer;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        ngramAnalyzer = MinHash.createAnalyzer(() -> new NGramTokenizer(k, k), 1, 0, num, hashMode);
+        // CJK ideographs
+        final int[] ids = BenchmarkTexts.zipf(numOfChars, 3000, 1.0, 1);
+        final StringBuilder buf = new StringBuilder(numOfChars);
+        for (final int id : ids) {
+            buf.append((char) (0x4E00 + id));
+        }
+        text = buf.toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ngramAnalyzer.close();
+    }
+
+    @Benchmark
+    public byte[] ngramTokenizer() throws IOException {
+        return MinHash.calculate(ngramAnalyzer, text);
+    }
+
+    @Benchmark
+    public byte[] calculateCharGrams() {
+        return MinHash.calculateCharGrams(text, k, 0, num, 1, hashMode);
+    }
+}
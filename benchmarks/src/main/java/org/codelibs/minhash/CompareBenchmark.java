@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link MinHash#compare(byte[], byte[])}, {@link MinHash#countSameBits(byte[], byte[])}
+ * and {@link MinHash#isSimilar(byte[], byte[], float)} for dissimilar data, which is rejected early.
+ * Add {@code -jvmArgsAppend --add-modules=jdk.incubator.vector} to measure the Vector API path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompareBenchmark {
+
+    @Param({ "16", "32", "64", "256" })
+    public int numOfBytes;
+
+    private byte[] data1;
+
+    private byte[] data2;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(1);
+        data1 = new byte[numOfBytes];
+        data2 = new byte[numOfBytes];
+        random.nextBytes(data1);
+        random.nextBytes(data2);
+    }
+
+    @Benchmark
+    public float compare() {
+        return MinHash.compare(data1, data2);
+    }
+
+    @Benchmark
+    public int countSameBits() {
+        return MinHash.countSameBits(data1, data2);
+    }
+
+    @Benchmark
+    public boolean isSimilar() {
+        return MinHash.isSimilar(data1, data2, 0.9f);
+    }
+
+    @Benchmark
+    public boolean isWithinDistance() {
+        return MinHash.isWithinDistance(data1, data2, numOfBytes * 8 / 10);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.codelibs.minhash.metrics.JfrMinHashMetrics;
+import org.codelibs.minhash.metrics.MinHashInstrumentation;
+import org.codelibs.minhash.metrics.MinHashMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead of {@link MinHashInstrumentation}.
+ * OFF is the default, NOOP is a listener which does nothing, and JFR is {@link JfrMinHashMetrics}
+ * without a recording. Add {@code -jvmArgsAppend -XX:StartFlightRecording} to measure a recording.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    @Param({ "OFF", "NOOP", "JFR" })
+    public String metrics;
+
+    private Analyzer analyzer;
+
+    private String text;
+
+    private byte[] data1;
+
+    private byte[] data2;
+
+    private JfrMinHashMetrics jfrMetrics;
+
+    @Setup
+    public void setup() {
+        switch (metrics) {
+        case "NOOP":
+            MinHashInstrumentation.setMetrics(new MinHashMetrics() {
+            });
+            break;
+        case "JFR":
+            jfrMetrics = new JfrMinHashMetrics();
+            MinHashInstrumentation.setMetrics(jfrMetrics);
+            break;
+        default:
+            MinHashInstrumentation.setMetrics(null);
+            break;
+        }
+        analyzer = MinHash.createAnalyzer(WhitespaceTokenizer::new, 1, 0, 128);
+        text = BenchmarkTexts.create(100, 50000, 1);
+        final Random random = new Random(1);
+        data1 = new byte[16];
+        data2 = new byte[16];
+        random.nextBytes(data1);
+        random.nextBytes(data2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MinHashInstrumentation.setMetrics(null);
+        if (jfrMetrics != null) {
+            jfrMetrics.close();
+        }
+        analyzer.close();
+    }
+
+    @Benchmark
+    public byte[] calculate() throws IOException {
+        return MinHash.calculate(analyzer, text);
+    }
+
+    @Benchmark
+    public float compare() {
+        return MinHash.compare(data1, data2);
+    }
+}
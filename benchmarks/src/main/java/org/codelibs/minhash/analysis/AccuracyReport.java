@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.util.Locale;
+
+import org.codelibs.minhash.MinHash;
+
+/**
+ * Prints the root mean squared error of Jaccard similarities estimated by each {@link HashMode}.
+ * The error is computed from full 64-bit values and from 1-bit signatures,
+ * which estimate J by 2 * {@code MinHash.compare} - 1.
+ * Use with {@code TokenFilterBenchmark} to compare accuracy and speed.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar org.codelibs.minhash.analysis.AccuracyReport
+ * </pre>
+ */
+public final class AccuracyReport {
+
+    private static final int[] NUMS = { 32, 64, 128, 256 };
+
+    private static final int[] SET_SIZES = { 50, 500, 5000 };
+
+    private static final double[] JACCARDS = { 0.1, 0.5, 0.9 };
+
+    private static final int TRIALS = 500;
+
+    private AccuracyReport() {
+    }
+
+    public static void main(final String[] args) {
+        System.out.println("hashMode,num,setSize,jaccard,rmse,rmse1bit");
+        for (final HashMode hashMode : HashMode.values()) {
+            for (final int num : NUMS) {
+                for (final int setSize : SET_SIZES) {
+                    for (final double jaccard : JACCARDS) {
+                        final double[] rmse = rmse(hashMode, num, setSize, jaccard);
+                        System.out.println(
+                                String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.5f,%.5f", hashMode, num, setSize, jaccard, rmse[0], rmse[1]));
+                    }
+                }
+            }
+        }
+    }
+
+    private static double[] rmse(final HashMode hashMode, final int num, final int setSize, final double jaccard) {
+        // |A| = |B| = setSize, |A & B| = 2 * setSize * J / (1 + J)
+        final int shared = (int) Math.round(2 * setSize * jaccard / (1 + jaccard));
+        final double expected = (double) shared / (2 * setSize - shared);
+        double sum = 0;
+        double sum1bit = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            final MinHashSketch sketch1 = new MinHashSketch(trial * 10000, num, hashMode);
+            final MinHashSketch sketch2 = new MinHashSketch(trial * 10000, num, hashMode);
+            for (int i = 0; i < setSize; i++) {
+                sketch1.update("a" + i);
+                sketch2.update("a" + (i + setSize - shared));
+            }
+            final long[] values1 = sketch1.getMinHashValues();
+            final long[] values2 = sketch2.getMinHashValues();
+            int count = 0;
+            for (int i = 0; i < num; i++) {
+                if (values1[i] == values2[i]) {
+                    count++;
+                }
+            }
+            final double error = (double) count / num - expected;
+            sum += error * error;
+            final double error1bit = 2 * MinHash.compare(sketch1.toSignature(1), sketch2.toSignature(1)) - 1 - expected;
+            sum1bit += error1bit * error1bit;
+        }
+        return new double[] { Math.sqrt(sum / TRIALS), Math.sqrt(sum1bit / TRIALS) };
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.shingle.ShingleFilter;
+import org.codelibs.minhash.BenchmarkTexts;
+import org.codelibs.minhash.MinHash;
+import org.codelibs.minhash.analysis.ShingleMinHashTokenFilter.ShingleType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures word shingles by {@link ShingleFilter} in front of {@link MinHashTokenFilter}
+ * and by {@link ShingleMinHashTokenFilter}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShingleBenchmark {
+
+    @Param({ "128" })
+    public int num;
+
+    @Param({ "3" })
+    public int shingleSize;
+
+    @Param({ "10000" })
+    public int numOfTokens;
+
+    @Param({ "INDEPENDENT", "DOUBLE_HASHING" })
+    public HashMode hashMode;
+
+    private Analyzer shingleFilterAnalyzer;
+
+    private Analyzer fusedAnalyzer;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        shingleFilterAnalyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                final ShingleFilter shingles = new ShingleFilter(tokenizer, shingleSize, shingleSize);
+                shingles.setOutputUnigrams(false);
+                return new TokenStreamComponents(tokenizer, new MinHashTokenFilter(shingles, 0, num, 1, hashMode));
+            }
+        };
+        fusedAnalyzer = MinHash.createAnalyzer(ShingleType.WORD, shingleSize, 1, 0, num, hashMode);
+        text = BenchmarkTexts.create(numOfTokens, 50000, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        shingleFilterAnalyzer.close();
+        fusedAnalyzer.close();
+    }
+
+    @Benchmark
+    public byte[] shingleFilter() throws IOException {
+        return MinHash.calculate(shingleFilterAnalyzer, text);
+    }
+
+    @Benchmark
+    public byte[] fused() throws IOException {
+        return MinHash.calculate(fusedAnalyzer, text);
+    }
+}
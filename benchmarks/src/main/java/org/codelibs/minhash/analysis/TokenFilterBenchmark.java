@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.codelibs.minhash.BenchmarkTexts;
+import org.codelibs.minhash.MinHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link MinHashTokenFilter#incrementToken()} through {@link MinHash#calculate(Analyzer, String)}.
+ * Subtract {@code TokenizeBenchmark} to get the hash stage.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenFilterBenchmark {
+
+    @Param({ "32", "64", "128", "256" })
+    public int num;
+
+    @Param({ "1", "8" })
+    public int hashBit;
+
+    @Param({ "100", "10000" })
+    public int numOfTokens;
+
+    @Param({ "INDEPENDENT", "UNIVERSAL", "DOUBLE_HASHING", "SUPER_MINHASH" })
+    public HashMode hashMode;
+
+    private Analyzer analyzer;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        analyzer = MinHash.createAnalyzer(WhitespaceTokenizer::new, hashBit, 0, num, hashMode);
+        text = BenchmarkTexts.create(numOfTokens, 50000, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        analyzer.close();
+    }
+
+    @Benchmark
+    public byte[] calculate() throws IOException {
+        return MinHash.calculate(analyzer, text);
+    }
+}
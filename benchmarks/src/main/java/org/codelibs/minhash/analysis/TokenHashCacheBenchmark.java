@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.codelibs.minhash.BenchmarkTexts;
+import org.codelibs.minhash.MinHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link MinHashTokenFilter} with and without {@link TokenHashCache} on Zipf texts.
+ * Each invocation analyzes a different document, and the hit rate of the cache is printed at the end.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenHashCacheBenchmark {
+
+    private static final int NUM_OF_TEXTS = 64;
+
+    @Param({ "64", "128" })
+    public int num;
+
+    @Param({ "1000" })
+    public int numOfTokens;
+
+    @Param({ "50000" })
+    public int vocabularySize;
+
+    @Param({ "16777216" })
+    public long maxBytes;
+
+    private Analyzer analyzer;
+
+    private Analyzer cachedAnalyzer;
+
+    private TokenHashCache cache;
+
+    private String[] texts;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        analyzer = MinHash.createAnalyzer(WhitespaceTokenizer::new, 1, 0, num);
+        cache = new TokenHashCache(0, num, maxBytes);
+        cachedAnalyzer = MinHash.createAnalyzer(WhitespaceTokenizer::new, 1, cache);
+        texts = new String[NUM_OF_TEXTS];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = BenchmarkTexts.create(numOfTokens, vocabularySize, i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (cache.getHitCount() + cache.getMissCount() > 0) {
+            System.out.printf("%nhit rate: %.3f (capacity: %d)%n", cache.getHitRate(), cache.getCapacity());
+        }
+        analyzer.close();
+        cachedAnalyzer.close();
+    }
+
+    private String nextText() {
+        index = (index + 1) % NUM_OF_TEXTS;
+        return texts[index];
+    }
+
+    @Benchmark
+    public byte[] noCache() throws IOException {
+        return MinHash.calculate(analyzer, nextText());
+    }
+
+    @Benchmark
+    public byte[] tokenHashCache() throws IOException {
+        return MinHash.calculate(cachedAnalyzer, nextText());
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.util;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link HammingDistance}.
+ * This class is loaded only if jdk.incubator.vector module is available.
+ *
+ * @author shinsuke
+ *
+ */
+final class VectorHammingDistance implements HammingDistance.Kernel {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    public int distance(final byte[] data1, final int offset1, final byte[] data2, final int offset2, final int length) {
+        final int bound = SPECIES.loopBound(length);
+        LongVector acc = LongVector.zero(LongVector.SPECIES_PREFERRED);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            final ByteVector v1 = ByteVector.fromArray(SPECIES, data1, offset1 + i);
+            final ByteVector v2 = ByteVector.fromArray(SPECIES, data2, offset2 + i);
+            acc = acc.add(v1.lanewise(VectorOperators.XOR, v2).reinterpretAsLongs().lanewise(VectorOperators.BIT_COUNT));
+        }
+        final int count = (int) acc.reduceLanes(VectorOperators.ADD);
+        if (i == length) {
+            return count;
+        }
+        return count + HammingDistance.scalarDistance(data1, offset1 + i, data2, offset2 + i, length - i);
+    }
+}
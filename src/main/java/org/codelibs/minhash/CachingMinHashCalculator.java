@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.codelibs.minhash.analysis.HashMode;
+
+/**
+ * This class calculates MinHash values through a {@link SignatureCache}.
+ * A text is looked up by its 128-bit fingerprint and the namespace of the analyzer,
+ * and is analyzed only if it is not cached.
+ *
+ * @author shinsuke
+ *
+ */
+public class CachingMinHashCalculator {
+
+    private final Analyzer analyzer;
+
+    private final Object namespace;
+
+    private final SignatureCache cache;
+
+    /**
+     * Creates a calculator with {@link MinHash#createAnalyzer(int, int, int, HashMode)}.
+     * Calculators with the same configuration share cached signatures.
+     * The calculator can be used concurrently.
+     *
+     * @param hashBit the number of hash bits
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashMode a strategy to derive hash values
+     * @param cache a cache of signatures
+     */
+    public CachingMinHashCalculator(final int hashBit, final int seed, final int num, final HashMode hashMode, final SignatureCache cache) {
+        this(MinHash.createAnalyzer(hashBit, seed, num, hashMode), new SignatureCache.Configuration(hashBit, seed, num, hashMode), cache);
+    }
+
+    /**
+     * Creates a calculator with an analyzer.
+     * Signatures cached by this calculator are not shared with other calculators.
+     *
+     * @param analyzer an analyzer to calculate MinHash values
+     * @param cache a cache of signatures
+     */
+    public CachingMinHashCalculator(final Analyzer analyzer, final SignatureCache cache) {
+        this(analyzer, new Object(), cache);
+    }
+
+    /**
+     * Creates a calculator with an analyzer identified by the id.
+     * Calculators with the same id share cached signatures, so the id must be different
+     * for analyzers which give different signatures, such as different tokenizers or MinHash filters.
+     *
+     * @param id an id of the analyzer
+     * @param analyzer an analyzer to calculate MinHash values
+     * @param cache a cache of signatures
+     */
+    public CachingMinHashCalculator(final String id, final Analyzer analyzer, final SignatureCache cache) {
+        this(analyzer, (Object) id, cache);
+    }
+
+    private CachingMinHashCalculator(final Analyzer analyzer, final Object namespace, final SignatureCache cache) {
+        if (namespace == null) {
+            throw new IllegalArgumentException("id is required.");
+        }
+        this.analyzer = analyzer;
+        this.namespace = namespace;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the cached MinHash value of the text, or calculates and caches it.
+     *
+     * @param text a target text
+     * @return MinHash value
+     * @throws IOException if the analyzer fails
+     */
+    public byte[] calculate(final String text) throws IOException {
+        final SignatureCache.Key key = SignatureCache.Key.of(text, namespace);
+        byte[] signature = cache.get(key);
+        if (signature == null) {
+            signature = MinHash.calculate(analyzer, text);
+            if (signature != null) {
+                cache.put(key, signature);
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Returns the cache.
+     *
+     * @return the cache of signatures
+     */
+    public SignatureCache getCache() {
+        return cache;
+    }
+}
@@ -16,14 +16,33 @@
 package org.codelibs.minhash;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.Supplier;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.codelibs.minhash.analysis.HashMode;
+import org.codelibs.minhash.analysis.MinHashSignatureAttribute;
+import org.codelibs.minhash.analysis.MinHashSketch;
 import org.codelibs.minhash.analysis.MinHashTokenFilter;
+import org.codelibs.minhash.analysis.OnePermutationMinHashTokenFilter;
+import org.codelibs.minhash.analysis.OnePermutationMinHashTokenFilter.Densification;
+import org.codelibs.minhash.analysis.ShingleMinHashTokenFilter;
+import org.codelibs.minhash.analysis.ShingleMinHashTokenFilter.ShingleType;
+import org.codelibs.minhash.analysis.TokenHashCache;
+import org.codelibs.minhash.analysis.WeightedMinHashTokenFilter;
+import org.codelibs.minhash.metrics.MinHashInstrumentation;
+import org.codelibs.minhash.metrics.MinHashMetrics;
 import org.codelibs.minhash.util.FastBitSet;
+import org.codelibs.minhash.util.HammingDistance;
+import org.codelibs.minhash.util.MappedFileReader;
+import org.codelibs.minhash.util.RollingHash;
 
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
@@ -37,6 +56,8 @@ import com.google.common.io.BaseEncoding;
  */
 public class MinHash {
 
+    private static final int CHAR_BUFFER_SIZE = 8192;
+
     private MinHash() {
     }
 
@@ -99,19 +120,99 @@ public class MinHash {
         if (data1 == null || data2 == null || data1.length != data2.length) {
             return 0;
         }
+        final MinHashMetrics metrics = MinHashInstrumentation.getMetrics();
+        if (metrics != null) {
+            metrics.compared(data1.length);
+        }
         final int count = countSameBits(data1, data2);
         return (float) count / (float) numOfBits;
     }
 
-    protected static int countSameBits(final byte[] data1, final byte[] data2) {
-        int count = 0;
-        for (int i = 0; i < data1.length; i++) {
-            // XOR to find differing bits, then count the zeros (same bits)
-            // Same bits: 8 - number of differing bits
-            final int xor = (data1[i] ^ data2[i]) & 0xFF;
-            count += 8 - Integer.bitCount(xor);
+    /**
+     * Checks if the similarity of bytes is at least the threshold.
+     * The result is the same as {@code compare(data1, data2) >= threshold},
+     * but the comparison stops as soon as too many different bits are found.
+     *
+     * @param data1 MinHash bytes
+     * @param data2 MinHash bytes
+     * @param threshold the minimum similarity
+     * @return true if similar
+     */
+    public static boolean isSimilar(final byte[] data1, final byte[] data2, final float threshold) {
+        if (data1 == null || data2 == null) {
+            return 0 >= threshold;
         }
-        return count;
+        return isSimilar(data1.length * 8, data1, data2, threshold);
+    }
+
+    /**
+     * Checks if the similarity of bytes is at least the threshold.
+     * The result is the same as {@code compare(numOfBits, data1, data2) >= threshold},
+     * but the comparison stops as soon as too many different bits are found.
+     *
+     * @param numOfBits The number of MinHash bits
+     * @param data1 MinHash bytes
+     * @param data2 MinHash bytes
+     * @param threshold the minimum similarity
+     * @return true if similar
+     */
+    public static boolean isSimilar(final int numOfBits, final byte[] data1, final byte[] data2, final float threshold) {
+        if (data1 == null || data2 == null || data1.length != data2.length) {
+            return 0 >= threshold;
+        }
+        final MinHashMetrics metrics = MinHashInstrumentation.getMetrics();
+        if (metrics != null) {
+            metrics.compared(data1.length);
+        }
+        final int maxDistance = maxDistance(data1.length * 8, numOfBits, threshold);
+        return maxDistance >= 0 && HammingDistance.distance(data1, data2, maxDistance) <= maxDistance;
+    }
+
+    /**
+     * Checks if bytes differ in at most maxDistance bits.
+     * The comparison stops as soon as more different bits are found.
+     *
+     * @param data1 MinHash bytes
+     * @param data2 MinHash bytes
+     * @param maxDistance the maximum number of different bits
+     * @return true if the Hamming distance is at most maxDistance, or false if either argument is null or arrays have different lengths
+     */
+    public static boolean isWithinDistance(final byte[] data1, final byte[] data2, final int maxDistance) {
+        if (data1 == null || data2 == null || data1.length != data2.length || maxDistance < 0) {
+            return false;
+        }
+        final MinHashMetrics metrics = MinHashInstrumentation.getMetrics();
+        if (metrics != null) {
+            metrics.compared(data1.length);
+        }
+        return HammingDistance.distance(data1, data2, maxDistance) <= maxDistance;
+    }
+
+    /**
+     * Returns the largest number of different bits whose similarity is at least the threshold,
+     * or -1 if no distance satisfies it.
+     */
+    static int maxDistance(final int totalBits, final int numOfBits, final float threshold) {
+        if (Float.isNaN(threshold)) {
+            return -1;
+        }
+        // the minimum number of same bits, adjusted for the rounding of float
+        long same = (long) (threshold * (double) numOfBits);
+        while ((float) same / (float) numOfBits < threshold) {
+            if (same >= totalBits) {
+                return -1;
+            }
+            same++;
+        }
+        while (same > 0 && (float) (same - 1) / (float) numOfBits >= threshold) {
+            same--;
+        }
+        return (int) Math.max(-1, totalBits - Math.max(0, same));
+    }
+
+    protected static int countSameBits(final byte[] data1, final byte[] data2) {
+        // Same bits: all bits - number of differing bits (XOR + popcount per 64-bit word)
+        return data1.length * 8 - HammingDistance.distance(data1, data2);
     }
 
     /**
@@ -138,19 +239,210 @@ public class MinHash {
      * @throws IOException
      */
     public static byte[] calculate(final Analyzer analyzer, final String text) throws IOException {
-        byte[] value = null;
         try (TokenStream stream = analyzer.tokenStream("minhash", text)) {
-            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            return calculate(stream);
+        }
+    }
+
+    /**
+     * Calculates MinHash value from a reader.
+     * The text is read by the tokenizer and is not kept in memory.
+     *
+     * @param analyzer analyzer to parse a text
+     * @param reader a reader of a target text
+     * @return MinHash value
+     * @throws IOException
+     */
+    public static byte[] calculate(final Analyzer analyzer, final Reader reader) throws IOException {
+        try (TokenStream stream = analyzer.tokenStream("minhash", reader)) {
+            return calculate(stream);
+        }
+    }
+
+    /**
+     * Calculates MinHash value of a UTF-8 file.
+     *
+     * @param analyzer analyzer to parse a text
+     * @param path a target file
+     * @return MinHash value
+     * @throws IOException
+     */
+    public static byte[] calculate(final Analyzer analyzer, final Path path) throws IOException {
+        return calculate(analyzer, path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Calculates MinHash value of a file.
+     * The file is memory-mapped and decoded while it is tokenized,
+     * so the heap usage does not depend on the file size.
+     *
+     * @param analyzer analyzer to parse a text
+     * @param path a target file
+     * @param charset a charset of the file
+     * @return MinHash value
+     * @throws IOException
+     */
+    public static byte[] calculate(final Analyzer analyzer, final Path path, final Charset charset) throws IOException {
+        try (Reader reader = new MappedFileReader(path, charset)) {
+            return calculate(analyzer, reader);
+        }
+    }
+
+    private static byte[] calculate(final TokenStream stream) throws IOException {
+        final MinHashMetrics metrics = MinHashInstrumentation.getMetrics();
+        final long start = metrics != null ? System.nanoTime() : 0L;
+        byte[] value = null;
+        final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        final MinHashSignatureAttribute signatureAtt = stream.addAttribute(MinHashSignatureAttribute.class);
+        signatureAtt.setTermRequired(false);
+        try {
             stream.reset();
             if (stream.incrementToken()) {
-                final String minhashValue = termAtt.toString();
-                value = BaseEncoding.base64().decode(minhashValue);
+                value = signatureAtt.getSignature();
+                if (value == null) {
+                    // a filter which does not set the attribute
+                    value = BaseEncoding.base64().decode(termAtt.toString());
+                }
             }
             stream.end();
+        } finally {
+            signatureAtt.setTermRequired(true);
+        }
+        if (metrics != null) {
+            metrics.calculated(value != null ? value.length : 0, System.nanoTime() - start);
         }
         return value;
     }
 
+    /**
+     * Calculates MinHash value of character k-grams without an analyzer.
+     * A rolling hash runs over the characters of the text, so this works for languages
+     * without spaces between words, such as Chinese and Japanese.
+     * The result is the same as {@link #createAnalyzer(Supplier, ShingleType, int, int, int, int, HashMode)}
+     * with {@code KeywordTokenizer} and {@link ShingleType#CHARACTER}.
+     *
+     * @param text a text
+     * @param k the number of characters in a k-gram
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashBit the number of hash bits
+     * @return MinHash value
+     */
+    public static byte[] calculateCharGrams(final String text, final int k, final int seed, final int num, final int hashBit) {
+        return calculateCharGrams(text, k, seed, num, hashBit, HashMode.INDEPENDENT);
+    }
+
+    /**
+     * Calculates MinHash value of character k-grams with the given hash mode without an analyzer.
+     *
+     * @param text a text
+     * @param k the number of characters in a k-gram
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashBit the number of hash bits
+     * @param hashMode a strategy to derive hash values
+     * @return MinHash value
+     */
+    public static byte[] calculateCharGrams(final String text, final int k, final int seed, final int num, final int hashBit,
+            final HashMode hashMode) {
+        final CharGrams charGrams = new CharGrams(k, seed, num, hashMode);
+        final char[] buffer = new char[Math.min(text.length(), CHAR_BUFFER_SIZE)];
+        for (int offset = 0; offset < text.length(); offset += buffer.length) {
+            final int length = Math.min(buffer.length, text.length() - offset);
+            text.getChars(offset, offset + length, buffer, 0);
+            charGrams.add(buffer, length);
+        }
+        return charGrams.toSignature(hashBit);
+    }
+
+    /**
+     * Calculates MinHash value of character k-grams in a reader without an analyzer.
+     * The reader is not closed.
+     *
+     * @param reader a reader of a text
+     * @param k the number of characters in a k-gram
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashBit the number of hash bits
+     * @return MinHash value
+     * @throws IOException if the reader cannot be read
+     */
+    public static byte[] calculateCharGrams(final Reader reader, final int k, final int seed, final int num, final int hashBit)
+            throws IOException {
+        return calculateCharGrams(reader, k, seed, num, hashBit, HashMode.INDEPENDENT);
+    }
+
+    /**
+     * Calculates MinHash value of character k-grams in a reader with the given hash mode without an analyzer.
+     * The reader is not closed.
+     *
+     * @param reader a reader of a text
+     * @param k the number of characters in a k-gram
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashBit the number of hash bits
+     * @param hashMode a strategy to derive hash values
+     * @return MinHash value
+     * @throws IOException if the reader cannot be read
+     */
+    public static byte[] calculateCharGrams(final Reader reader, final int k, final int seed, final int num, final int hashBit,
+            final HashMode hashMode) throws IOException {
+        final CharGrams charGrams = new CharGrams(k, seed, num, hashMode);
+        final char[] buffer = new char[CHAR_BUFFER_SIZE];
+        int length;
+        while ((length = reader.read(buffer)) != -1) {
+            charGrams.add(buffer, length);
+        }
+        return charGrams.toSignature(hashBit);
+    }
+
+    private static class CharGrams {
+        private final MinHashSketch sketch;
+
+        private final RollingHash rollingHash;
+
+        private final MinHashMetrics metrics = MinHashInstrumentation.getMetrics();
+
+        private final long start;
+
+        private int numOfGrams;
+
+        CharGrams(final int k, final int seed, final int num, final HashMode hashMode) {
+            if (k <= 0) {
+                throw new IllegalArgumentException("k is above 0.");
+            }
+            sketch = new MinHashSketch(seed, num, hashMode);
+            rollingHash = new RollingHash(k);
+            start = metrics != null ? System.nanoTime() : 0L;
+        }
+
+        void add(final char[] buffer, final int length) {
+            for (int i = 0; i < length; i++) {
+                if (rollingHash.add(buffer[i])) {
+                    sketch.update(rollingHash.hash());
+                    numOfGrams++;
+                }
+            }
+        }
+
+        byte[] toSignature(final int hashBit) {
+            // a text shorter than k is one k-gram
+            if (numOfGrams == 0 && rollingHash.size() > 0) {
+                sketch.update(rollingHash.hash());
+                numOfGrams++;
+            }
+            if (metrics == null) {
+                return sketch.toSignature(hashBit);
+            }
+            final long packStart = System.nanoTime();
+            final byte[] signature = sketch.toSignature(hashBit);
+            final long end = System.nanoTime();
+            metrics.signatureCreated(numOfGrams, packStart - start, signature.length, end - packStart);
+            metrics.calculated(signature.length, end - start);
+            return signature;
+        }
+    }
+
     /**
      * Calculates MinHash value.
      *
@@ -177,19 +469,17 @@ public class MinHash {
         int pos = 0;
         final FastBitSet bitSet = new FastBitSet(bitSize);
         for (final Data target : data) {
-            int count = 0;
             final byte[] bytes = calculate(target);
-            for (final byte b : bytes) {
-                byte bits = b;
-                for (int j = 0; j < 8; j++) {
-                    bitSet.set(pos, (bits & 0x1) == 0x1);
-                    pos++;
-                    count++;
-                    if (count >= target.numOfBits) {
-                        break;
-                    }
-                    bits >>= 1;
-                }
+            final int length = Math.min(target.numOfBits, bytes.length * 8);
+            for (int i = 0; i < length; i += 64) {
+                final int nbits = Math.min(64, length - i);
+                bitSet.setBits(pos + i, FastBitSet.getBits(bytes, i, nbits), nbits);
+            }
+            pos += Math.max(length, 0);
+            // Each byte after numOfBits adds its lowest bit, as in earlier versions.
+            for (int i = target.numOfBits <= 0 ? 0 : (target.numOfBits - 1) / 8 + 1; i < bytes.length; i++) {
+                bitSet.set(pos, (bytes[i] & 0x1) == 0x1);
+                pos++;
             }
         }
         return bitSet.toByteArray();
@@ -240,7 +530,7 @@ public class MinHash {
 
     /**
      * <p>Create an analyzer to calculate a minhash.</p>
-     * <p>Uses {@link WhitespaceTokenizer} as {@link Tokenizer}</p>
+     * <p>Uses {@link WhitespaceTokenizer} as {@link Tokenizer}. The analyzer can be used concurrently.</p>
      *
      * @param hashBit the number of hash bits
      * @param seed a base seed for hash function
@@ -248,11 +538,27 @@ public class MinHash {
      * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
      */
     public static Analyzer createAnalyzer(final int hashBit, final int seed, final int num) {
-        return createAnalyzer(new WhitespaceTokenizer(), hashBit, seed, num);
+        return createAnalyzer(WhitespaceTokenizer::new, hashBit, seed, num);
+    }
+
+    /**
+     * <p>Create an analyzer to calculate a minhash with the given hash mode.</p>
+     * <p>Uses {@link WhitespaceTokenizer} as {@link Tokenizer}. The analyzer can be used concurrently.</p>
+     *
+     * @param hashBit the number of hash bits
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashMode a strategy to derive hash values ({@link HashMode#INDEPENDENT} is compatible with the other methods)
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createAnalyzer(final int hashBit, final int seed, final int num, final HashMode hashMode) {
+        return createAnalyzer(WhitespaceTokenizer::new, hashBit, seed, num, hashMode);
     }
 
     /**
      * Create an analyzer to calculate a minhash.
+     * The tokenizer is shared by all threads, so the analyzer must not be used concurrently.
+     * Use {@link #createAnalyzer(Supplier, int, int, int)} for concurrent use.
      *
      * @param tokenizer a tokenizer to parse a text
      * @param hashBit the number of hash bits
@@ -261,11 +567,232 @@ public class MinHash {
      * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
      */
     public static Analyzer createAnalyzer(final Tokenizer tokenizer, final int hashBit, final int seed, final int num) {
-        final HashFunction[] hashFunctions = MinHash.createHashFunctions(seed, num);
+        return createAnalyzer(tokenizer, hashBit, seed, num, HashMode.INDEPENDENT);
+    }
+
+    /**
+     * Create an analyzer to calculate a minhash with the given hash mode.
+     * The tokenizer is shared by all threads, so the analyzer must not be used concurrently.
+     * Use {@link #createAnalyzer(Supplier, int, int, int, HashMode)} for concurrent use.
+     *
+     * @param tokenizer a tokenizer to parse a text
+     * @param hashBit the number of hash bits
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashMode a strategy to derive hash values ({@link HashMode#INDEPENDENT} is compatible with the other methods)
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createAnalyzer(final Tokenizer tokenizer, final int hashBit, final int seed, final int num,
+            final HashMode hashMode) {
+        return createAnalyzer(() -> tokenizer, hashBit, seed, num, hashMode);
+    }
+
+    /**
+     * Create an analyzer to calculate a minhash.
+     * A tokenizer is created for each thread, so the analyzer can be used concurrently.
+     *
+     * @param tokenizerSupplier a supplier to create a tokenizer, such as {@code WhitespaceTokenizer::new}
+     * @param hashBit the number of hash bits
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createAnalyzer(final Supplier<Tokenizer> tokenizerSupplier, final int hashBit, final int seed, final int num) {
+        return createAnalyzer(tokenizerSupplier, hashBit, seed, num, HashMode.INDEPENDENT);
+    }
+
+    /**
+     * Create an analyzer to calculate a minhash with the given hash mode.
+     * A tokenizer is created for each thread, so the analyzer can be used concurrently.
+     *
+     * @param tokenizerSupplier a supplier to create a tokenizer, such as {@code WhitespaceTokenizer::new}
+     * @param hashBit the number of hash bits
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashMode a strategy to derive hash values ({@link HashMode#INDEPENDENT} is compatible with the other methods)
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createAnalyzer(final Supplier<Tokenizer> tokenizerSupplier, final int hashBit, final int seed, final int num,
+            final HashMode hashMode) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = tokenizerSupplier.get();
+                final TokenStream stream = new MinHashTokenFilter(tokenizer, seed, num, hashBit, hashMode);
+                return new TokenStreamComponents(tokenizer, stream);
+            }
+        };
+    }
+
+    /**
+     * Create an analyzer to calculate a minhash with hash values of terms in the cache.
+     * The result is the same as {@link HashMode#INDEPENDENT} with the hash functions of the cache.
+     * A tokenizer is created for each thread, and the cache is shared by them.
+     *
+     * @param tokenizerSupplier a supplier to create a tokenizer, such as {@code WhitespaceTokenizer::new}
+     * @param hashBit the number of hash bits
+     * @param tokenHashCache a cache of hash values of terms
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createAnalyzer(final Supplier<Tokenizer> tokenizerSupplier, final int hashBit,
+            final TokenHashCache tokenHashCache) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = tokenizerSupplier.get();
+                final TokenStream stream = new MinHashTokenFilter(tokenizer, tokenHashCache, hashBit);
+                return new TokenStreamComponents(tokenizer, stream);
+            }
+        };
+    }
+
+    /**
+     * <p>Create an analyzer to calculate a minhash of word or character shingles.</p>
+     * <p>Uses {@link WhitespaceTokenizer} as {@link Tokenizer}. The analyzer can be used concurrently.</p>
+     *
+     * @param shingleType a unit of shingles
+     * @param shingleSize the number of words or characters in a shingle
+     * @param hashBit the number of hash bits
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashMode a strategy to derive hash values
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createAnalyzer(final ShingleType shingleType, final int shingleSize, final int hashBit, final int seed,
+            final int num, final HashMode hashMode) {
+        return createAnalyzer(WhitespaceTokenizer::new, shingleType, shingleSize, hashBit, seed, num, hashMode);
+    }
+
+    /**
+     * Create an analyzer to calculate a minhash of word or character shingles.
+     * Shingles are hashed by a rolling hash without creating terms.
+     * A tokenizer is created for each thread, so the analyzer can be used concurrently.
+     *
+     * @param tokenizerSupplier a supplier to create a tokenizer, such as {@code WhitespaceTokenizer::new}
+     * @param shingleType a unit of shingles
+     * @param shingleSize the number of words or characters in a shingle
+     * @param hashBit the number of hash bits
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashMode a strategy to derive hash values
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createAnalyzer(final Supplier<Tokenizer> tokenizerSupplier, final ShingleType shingleType, final int shingleSize,
+            final int hashBit, final int seed, final int num, final HashMode hashMode) {
+        if (shingleSize <= 0) {
+            throw new IllegalArgumentException("shingleSize is above 0.");
+        }
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = tokenizerSupplier.get();
+                final TokenStream stream = new ShingleMinHashTokenFilter(tokenizer, shingleType, shingleSize, seed, num, hashBit, hashMode);
+                return new TokenStreamComponents(tokenizer, stream);
+            }
+        };
+    }
+
+    /**
+     * <p>Create an analyzer to calculate a minhash by one permutation hashing.</p>
+     * <p>Uses {@link WhitespaceTokenizer} as {@link Tokenizer}. The analyzer can be used concurrently.</p>
+     *
+     * @param hashBit the number of hash bits
+     * @param seed a seed for hash function
+     * @param num the number of bins
+     * @param densification a strategy to fill empty bins
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createOnePermutationAnalyzer(final int hashBit, final int seed, final int num,
+            final Densification densification) {
+        return createOnePermutationAnalyzer(WhitespaceTokenizer::new, hashBit, seed, num, densification);
+    }
+
+    /**
+     * Create an analyzer to calculate a minhash by one permutation hashing.
+     * The tokenizer is shared by all threads, so the analyzer must not be used concurrently.
+     *
+     * @param tokenizer a tokenizer to parse a text
+     * @param hashBit the number of hash bits
+     * @param seed a seed for hash function
+     * @param num the number of bins
+     * @param densification a strategy to fill empty bins
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createOnePermutationAnalyzer(final Tokenizer tokenizer, final int hashBit, final int seed, final int num,
+            final Densification densification) {
+        return createOnePermutationAnalyzer(() -> tokenizer, hashBit, seed, num, densification);
+    }
+
+    /**
+     * Create an analyzer to calculate a minhash by one permutation hashing.
+     * A token is hashed only once, so the cost per token does not depend on num.
+     * A tokenizer is created for each thread, so the analyzer can be used concurrently.
+     *
+     * @param tokenizerSupplier a supplier to create a tokenizer, such as {@code WhitespaceTokenizer::new}
+     * @param hashBit the number of hash bits
+     * @param seed a seed for hash function
+     * @param num the number of bins
+     * @param densification a strategy to fill empty bins
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createOnePermutationAnalyzer(final Supplier<Tokenizer> tokenizerSupplier, final int hashBit, final int seed,
+            final int num, final Densification densification) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = tokenizerSupplier.get();
+                final TokenStream stream = new OnePermutationMinHashTokenFilter(tokenizer, seed, num, hashBit, densification);
+                return new TokenStreamComponents(tokenizer, stream);
+            }
+        };
+    }
+
+    /**
+     * <p>Create an analyzer to calculate a weighted minhash.</p>
+     * <p>Uses {@link WhitespaceTokenizer} as {@link Tokenizer}. The analyzer can be used concurrently.</p>
+     *
+     * @param hashBit the number of hash bits
+     * @param seed a seed for hash function
+     * @param num the number of samples
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createWeightedAnalyzer(final int hashBit, final int seed, final int num) {
+        return createWeightedAnalyzer(WhitespaceTokenizer::new, hashBit, seed, num);
+    }
+
+    /**
+     * Create an analyzer to calculate a weighted minhash.
+     * The tokenizer is shared by all threads, so the analyzer must not be used concurrently.
+     *
+     * @param tokenizer a tokenizer to parse a text
+     * @param hashBit the number of hash bits
+     * @param seed a seed for hash function
+     * @param num the number of samples
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createWeightedAnalyzer(final Tokenizer tokenizer, final int hashBit, final int seed, final int num) {
+        return createWeightedAnalyzer(() -> tokenizer, hashBit, seed, num);
+    }
+
+    /**
+     * Create an analyzer to calculate a weighted minhash.
+     * Terms are weighted by their frequencies, and {@link MinHash#compare(byte[], byte[])}
+     * estimates the weighted Jaccard similarity.
+     * A tokenizer is created for each thread, so the analyzer can be used concurrently.
+     *
+     * @param tokenizerSupplier a supplier to create a tokenizer, such as {@code WhitespaceTokenizer::new}
+     * @param hashBit the number of hash bits
+     * @param seed a seed for hash function
+     * @param num the number of samples
+     * @return analyzer used by {@link MinHash#calculate(Analyzer, String)}
+     */
+    public static Analyzer createWeightedAnalyzer(final Supplier<Tokenizer> tokenizerSupplier, final int hashBit, final int seed,
+            final int num) {
         return new Analyzer() {
             @Override
             protected TokenStreamComponents createComponents(final String fieldName) {
-                final TokenStream stream = new MinHashTokenFilter(tokenizer, hashFunctions, hashBit);
+                final Tokenizer tokenizer = tokenizerSupplier.get();
+                final TokenStream stream = new WeightedMinHashTokenFilter(tokenizer, seed, num, hashBit);
                 return new TokenStreamComponents(tokenizer, stream);
             }
         };
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.lucene.analysis.Analyzer;
+
+/**
+ * This class calculates MinHash values of many texts in parallel.
+ * Analyzers are created by the supplier and pooled, so each analyzer is used by
+ * one task at a time and is reused by later tasks.
+ * Results are returned in the order of the input texts.
+ *
+ * @author shinsuke
+ *
+ */
+public class MinHashCalculator implements Closeable {
+
+    private final Supplier<Analyzer> analyzerSupplier;
+
+    private final ExecutorService executor;
+
+    private final boolean shutdownExecutor;
+
+    private final int maxInFlight;
+
+    private final Queue<Analyzer> idleAnalyzers = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Analyzer> analyzers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a calculator with threads for available processors.
+     *
+     * @param analyzerSupplier a supplier to create an analyzer, such as {@code () -> MinHash.createAnalyzer(1, 0, 128)}
+     */
+    public MinHashCalculator(final Supplier<Analyzer> analyzerSupplier) {
+        this(analyzerSupplier, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a calculator with the given number of threads.
+     *
+     * @param analyzerSupplier a supplier to create an analyzer
+     * @param numOfThreads the number of threads
+     */
+    public MinHashCalculator(final Supplier<Analyzer> analyzerSupplier, final int numOfThreads) {
+        this(analyzerSupplier, Executors.newFixedThreadPool(numOfThreads), numOfThreads * 4, true);
+    }
+
+    /**
+     * Creates a calculator on the executor.
+     * The executor is not shut down by {@link #close()}.
+     * A virtual thread executor is also available because analyzers are pooled.
+     *
+     * @param analyzerSupplier a supplier to create an analyzer
+     * @param executor an executor to run calculations
+     * @param maxInFlight the maximum number of texts submitted to the executor at a time
+     */
+    public MinHashCalculator(final Supplier<Analyzer> analyzerSupplier, final ExecutorService executor, final int maxInFlight) {
+        this(analyzerSupplier, executor, maxInFlight, false);
+    }
+
+    private MinHashCalculator(final Supplier<Analyzer> analyzerSupplier, final ExecutorService executor, final int maxInFlight,
+            final boolean shutdownExecutor) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight is above 0.");
+        }
+        this.analyzerSupplier = analyzerSupplier;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.shutdownExecutor = shutdownExecutor;
+    }
+
+    /**
+     * Calculates a MinHash value in the current thread with a pooled analyzer.
+     *
+     * @param text a target text
+     * @return MinHash value
+     * @throws IOException if the analyzer fails
+     */
+    public byte[] calculate(final String text) throws IOException {
+        Analyzer analyzer = idleAnalyzers.poll();
+        if (analyzer == null) {
+            analyzer = analyzerSupplier.get();
+            analyzers.add(analyzer);
+        }
+        try {
+            return MinHash.calculate(analyzer, text);
+        } finally {
+            idleAnalyzers.offer(analyzer);
+        }
+    }
+
+    /**
+     * Calculates MinHash values in parallel.
+     *
+     * @param texts target texts
+     * @return MinHash values in the order of texts
+     * @throws IOException if the analyzer fails
+     */
+    public List<byte[]> calculateAll(final Iterable<String> texts) throws IOException {
+        final List<byte[]> results = new ArrayList<>();
+        try {
+            final Iterator<byte[]> iterator = new ResultIterator(texts.iterator());
+            while (iterator.hasNext()) {
+                results.add(iterator.next());
+            }
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return results;
+    }
+
+    /**
+     * Calculates MinHash values in parallel.
+     * Texts are read lazily and at most maxInFlight texts are calculated ahead of the consumer.
+     * An {@link IOException} is thrown as {@link UncheckedIOException}.
+     * As with {@link MinHash#calculate(Analyzer, String)}, an element is null
+     * if the analyzer emits no token for the text.
+     *
+     * @param texts target texts
+     * @return MinHash values in the order of texts
+     */
+    public Stream<byte[]> calculateAll(final Stream<String> texts) {
+        final ResultIterator iterator = new ResultIterator(texts.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    iterator.cancel();
+                    texts.close();
+                });
+    }
+
+    @Override
+    public void close() {
+        if (shutdownExecutor) {
+            executor.shutdownNow();
+        }
+        Analyzer analyzer;
+        while ((analyzer = analyzers.poll()) != null) {
+            analyzer.close();
+        }
+        idleAnalyzers.clear();
+    }
+
+    private class ResultIterator implements Iterator<byte[]> {
+        private final Iterator<String> texts;
+
+        private final Deque<Future<byte[]>> futures = new ArrayDeque<>();
+
+        private boolean canceled;
+
+        ResultIterator(final Iterator<String> texts) {
+            this.texts = texts;
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !futures.isEmpty();
+        }
+
+        @Override
+        public byte[] next() {
+            fill();
+            final Future<byte[]> future = futures.poll();
+            if (future == null) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new IllegalStateException("Interrupted while calculating MinHash.", e);
+            } catch (final ExecutionException e) {
+                cancel();
+                final Throwable cause = e.getCause();
+                if (cause instanceof final IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+                if (cause instanceof final RuntimeException re) {
+                    throw re;
+                }
+                throw new IllegalStateException("Failed to calculate MinHash.", cause);
+            }
+        }
+
+        private void fill() {
+            while (!canceled && futures.size() < maxInFlight && texts.hasNext()) {
+                final String text = texts.next();
+                futures.add(executor.submit(() -> calculate(text)));
+            }
+        }
+
+        void cancel() {
+            canceled = true;
+            Future<byte[]> future;
+            while ((future = futures.poll()) != null) {
+                future.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.codelibs.minhash.analysis.HashMode;
+import org.codelibs.minhash.util.Murmur3;
+
+/**
+ * This class is a bounded LRU cache of MinHash signatures keyed by a 128-bit fingerprint of the text
+ * and a namespace of the analyzer, so that signatures of repeated texts are not calculated again
+ * and signatures of different analyzers are never mixed.
+ * The namespace is the configuration of {@link MinHash#createAnalyzer(int, int, int, HashMode)},
+ * or an id given by the caller for other analyzers.
+ * Signatures are stored in the heap, or in a direct buffer if the maximum signature length is given.
+ * The cache can be shared by threads and by {@link CachingMinHashCalculator}s of different configurations.
+ *
+ * @author shinsuke
+ *
+ */
+public class SignatureCache {
+
+    private final int maxEntries;
+
+    private final Map<Key, Object> entries;
+
+    // off-heap storage: slots of a 2-byte length and a signature
+    private final ByteBuffer buffer;
+
+    private final int slotSize;
+
+    private final int[] freeSlots;
+
+    private int numOfFreeSlots;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    /**
+     * Creates a cache which stores signatures in the heap.
+     *
+     * @param maxEntries the maximum number of signatures
+     */
+    public SignatureCache(final int maxEntries) {
+        this(maxEntries, 0);
+    }
+
+    /**
+     * Creates a cache which stores signatures in a direct buffer of maxEntries slots.
+     * Signatures longer than maxSignatureLength are not cached.
+     *
+     * @param maxEntries the maximum number of signatures
+     * @param maxSignatureLength the maximum number of bytes of a signature, or 0 to store signatures in the heap
+     */
+    public SignatureCache(final int maxEntries, final int maxSignatureLength) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries is above 0.");
+        }
+        if (maxSignatureLength < 0 || maxSignatureLength > 0xFFFF) {
+            throw new IllegalArgumentException("maxSignatureLength is from 0 to 65535.");
+        }
+        this.maxEntries = maxEntries;
+        if (maxSignatureLength > 0) {
+            slotSize = maxSignatureLength + 2;
+            if ((long) slotSize * maxEntries > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("maxEntries x maxSignatureLength is too large.");
+            }
+            buffer = ByteBuffer.allocateDirect(slotSize * maxEntries);
+            freeSlots = new int[maxEntries];
+            for (int i = 0; i < maxEntries; i++) {
+                freeSlots[i] = maxEntries - 1 - i;
+            }
+            numOfFreeSlots = maxEntries;
+        } else {
+            slotSize = 0;
+            buffer = null;
+            freeSlots = null;
+        }
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Object> eldest) {
+                if (size() > SignatureCache.this.maxEntries) {
+                    release(eldest.getValue());
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached signature of the text by {@link MinHash#createAnalyzer(int, int, int, HashMode)}.
+     *
+     * @param text a text
+     * @param hashBit the number of hash bits
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashMode a strategy to derive hash values
+     * @return a copy of MinHash bytes, or null if not cached
+     */
+    public byte[] get(final String text, final int hashBit, final int seed, final int num, final HashMode hashMode) {
+        return get(Key.of(text, new Configuration(hashBit, seed, num, hashMode)));
+    }
+
+    /**
+     * Returns the cached signature of the text by the analyzer of the id.
+     *
+     * @param id an id of the analyzer, which is different for analyzers with different signatures
+     * @param text a text
+     * @return a copy of MinHash bytes, or null if not cached
+     */
+    public byte[] get(final String id, final String text) {
+        return get(Key.of(text, id));
+    }
+
+    /**
+     * Caches the signature of the text by {@link MinHash#createAnalyzer(int, int, int, HashMode)}.
+     *
+     * @param text a text
+     * @param hashBit the number of hash bits
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashMode a strategy to derive hash values
+     * @param signature MinHash bytes
+     */
+    public void put(final String text, final int hashBit, final int seed, final int num, final HashMode hashMode, final byte[] signature) {
+        put(Key.of(text, new Configuration(hashBit, seed, num, hashMode)), signature);
+    }
+
+    /**
+     * Caches the signature of the text by the analyzer of the id.
+     *
+     * @param id an id of the analyzer, which is different for analyzers with different signatures
+     * @param text a text
+     * @param signature MinHash bytes
+     */
+    public void put(final String id, final String text, final byte[] signature) {
+        put(Key.of(text, id), signature);
+    }
+
+    synchronized byte[] get(final Key key) {
+        final Object value = entries.get(key);
+        if (value == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        if (buffer == null) {
+            return ((byte[]) value).clone();
+        }
+        final int offset = (Integer) value * slotSize;
+        final byte[] signature = new byte[buffer.getShort(offset) & 0xFFFF];
+        buffer.get(offset + 2, signature);
+        return signature;
+    }
+
+    synchronized void put(final Key key, final byte[] signature) {
+        if (buffer == null) {
+            release(entries.put(key, signature.clone()));
+            return;
+        }
+        if (signature.length > slotSize - 2) {
+            return;
+        }
+        final Object old = entries.remove(key);
+        if (old != null) {
+            release(old);
+        } else if (numOfFreeSlots == 0) {
+            // evict the least recently used entry
+            final Map.Entry<Key, Object> eldest = entries.entrySet().iterator().next();
+            entries.remove(eldest.getKey());
+            release(eldest.getValue());
+            evictionCount++;
+        }
+        final int slot = freeSlots[--numOfFreeSlots];
+        final int offset = slot * slotSize;
+        buffer.putShort(offset, (short) signature.length);
+        buffer.put(offset + 2, signature);
+        entries.put(key, slot);
+    }
+
+    private void release(final Object value) {
+        if (buffer != null && value != null) {
+            freeSlots[numOfFreeSlots++] = (Integer) value;
+        }
+    }
+
+    /**
+     * Removes all signatures. Metrics are not reset.
+     */
+    public synchronized void clear() {
+        for (final Object value : entries.values()) {
+            release(value);
+        }
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of cached signatures.
+     *
+     * @return the number of signatures
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns true if signatures are stored in a direct buffer.
+     *
+     * @return true if off-heap
+     */
+    public boolean isOffHeap() {
+        return buffer != null;
+    }
+
+    /**
+     * Returns the number of lookups which found a signature.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which did not find a signature.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of signatures removed to keep the maximum size.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the ratio of hits to lookups.
+     *
+     * @return the hit rate (0 to 1.0), or 0 if nothing is looked up
+     */
+    public synchronized double getHitRate() {
+        final long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * A 128-bit fingerprint of a text and a namespace of an analyzer.
+     * The namespace is compared by equals, such as a {@link Configuration}, an id or an object of a calculator.
+     */
+    record Key(long fingerprint1, long fingerprint2, Object namespace) {
+
+        static Key of(final CharSequence text, final Object namespace) {
+            if (namespace == null) {
+                throw new IllegalArgumentException("namespace is required.");
+            }
+            final long[] fingerprint = new long[2];
+            Murmur3.hash128(0, text, fingerprint);
+            return new Key(fingerprint[0], fingerprint[1], namespace);
+        }
+    }
+
+    /**
+     * The namespace of {@link MinHash#createAnalyzer(int, int, int, HashMode)}.
+     */
+    record Configuration(int hashBit, int seed, int num, HashMode hashMode) {
+    }
+}
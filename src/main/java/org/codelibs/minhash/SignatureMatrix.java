@@ -0,0 +1,401 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class stores fixed-width MinHash signatures in one contiguous long array
+ * and compares a query with all of them.
+ * Similarities are the same as {@link MinHash#compare(byte[], byte[])}.
+ * Adding signatures is not thread-safe, but comparisons can run concurrently
+ * once all signatures are added.
+ *
+ * @author shinsuke
+ *
+ */
+public class SignatureMatrix {
+
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final int signatureLength;
+
+    private final int numOfBits;
+
+    private final int words;
+
+    private long[] data;
+
+    private int size;
+
+    /**
+     * Creates a matrix.
+     *
+     * @param signatureLength the number of bytes of each signature
+     */
+    public SignatureMatrix(final int signatureLength) {
+        this(signatureLength, 16);
+    }
+
+    /**
+     * Creates a matrix.
+     *
+     * @param signatureLength the number of bytes of each signature
+     * @param initialCapacity the initial number of signatures
+     */
+    public SignatureMatrix(final int signatureLength, final int initialCapacity) {
+        if (signatureLength <= 0) {
+            throw new IllegalArgumentException("signatureLength is above 0.");
+        }
+        this.signatureLength = signatureLength;
+        numOfBits = signatureLength * 8;
+        words = (signatureLength + 7) / 8;
+        data = new long[Math.max(initialCapacity, 1) * words];
+    }
+
+    /**
+     * Adds a signature.
+     *
+     * @param signature MinHash bytes
+     * @return the index of the signature
+     */
+    public int add(final byte[] signature) {
+        checkLength(signature);
+        if ((long) (size + 1) * words > data.length) {
+            final long capacity = Math.min((long) data.length * 2, (long) Integer.MAX_VALUE - 8) / words * words;
+            if (capacity <= data.length) {
+                throw new IllegalStateException("SignatureMatrix is full.");
+            }
+            data = Arrays.copyOf(data, (int) capacity);
+        }
+        toWords(signature, data, size * words);
+        return size++;
+    }
+
+    /**
+     * Returns the signature at the index.
+     *
+     * @param index the index of the signature
+     * @return MinHash bytes
+     */
+    public byte[] get(final int index) {
+        checkIndex(index);
+        final byte[] signature = new byte[signatureLength];
+        final int offset = index * words;
+        for (int i = 0; i < signatureLength; i++) {
+            signature[i] = (byte) (data[offset + i / 8] >>> i % 8 * 8);
+        }
+        return signature;
+    }
+
+    /**
+     * Returns the number of signatures.
+     *
+     * @return the number of signatures
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of each signature.
+     *
+     * @return the number of bytes
+     */
+    public int getSignatureLength() {
+        return signatureLength;
+    }
+
+    /**
+     * Compares a query with the signature at the index.
+     *
+     * @param index the index of the signature
+     * @param query MinHash bytes
+     * @return similarity (0 to 1.0f)
+     */
+    public float compare(final int index, final byte[] query) {
+        checkIndex(index);
+        return similarity(distance(toQuery(query), data, index * words));
+    }
+
+    /**
+     * Compares a query with all signatures.
+     *
+     * @param query MinHash bytes
+     * @param out similarities for each signature (the length must be at least {@link #size()})
+     */
+    public void compareAll(final byte[] query, final float[] out) {
+        compareAll(toQuery(query), out, 0, size);
+    }
+
+    /**
+     * Compares a query with all signatures on the pool.
+     *
+     * @param query MinHash bytes
+     * @param out similarities for each signature (the length must be at least {@link #size()})
+     * @param pool a pool to run comparisons
+     */
+    public void compareAll(final byte[] query, final float[] out, final ForkJoinPool pool) {
+        final long[] q = toQuery(query);
+        if (out.length < size) {
+            throw new IllegalArgumentException("out is smaller than " + size);
+        }
+        pool.invoke(new CompareAllAction(q, out, 0, size));
+    }
+
+    /**
+     * Returns k most similar signatures.
+     *
+     * @param query MinHash bytes
+     * @param k the number of results
+     * @return matches in descending order of similarity (ascending order of index for ties)
+     */
+    public List<Match> topK(final byte[] query, final int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        return toMatches(topK(toQuery(query), k, 0, size));
+    }
+
+    /**
+     * Returns k most similar signatures by comparing on the pool.
+     *
+     * @param query MinHash bytes
+     * @param k the number of results
+     * @param pool a pool to run comparisons
+     * @return matches in descending order of similarity (ascending order of index for ties)
+     */
+    public List<Match> topK(final byte[] query, final int k, final ForkJoinPool pool) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        return toMatches(pool.invoke(new TopKTask(toQuery(query), k, 0, size)));
+    }
+
+    private void compareAll(final long[] query, final float[] out, final int from, final int to) {
+        if (out.length < to) {
+            throw new IllegalArgumentException("out is smaller than " + to);
+        }
+        final long[] d = data;
+        for (int i = from; i < to; i++) {
+            out[i] = similarity(distance(query, d, i * words));
+        }
+    }
+
+    private TopKHeap topK(final long[] query, final int k, final int from, final int to) {
+        final TopKHeap heap = new TopKHeap(k);
+        final long[] d = data;
+        for (int i = from; i < to; i++) {
+            heap.offer(distance(query, d, i * words), i);
+        }
+        return heap;
+    }
+
+    private List<Match> toMatches(final TopKHeap heap) {
+        final long[] keys = heap.sortedKeys();
+        final List<Match> matches = new ArrayList<>(keys.length);
+        for (final long key : keys) {
+            matches.add(new Match((int) key, similarity((int) (key >>> 32))));
+        }
+        return matches;
+    }
+
+    private float similarity(final int distance) {
+        return (float) (numOfBits - distance) / (float) numOfBits;
+    }
+
+    private int distance(final long[] query, final long[] d, final int offset) {
+        int count = 0;
+        for (int w = 0; w < query.length; w++) {
+            count += Long.bitCount(query[w] ^ d[offset + w]);
+        }
+        return count;
+    }
+
+    private long[] toQuery(final byte[] query) {
+        checkLength(query);
+        final long[] q = new long[words];
+        toWords(query, q, 0);
+        return q;
+    }
+
+    private void toWords(final byte[] signature, final long[] dest, final int offset) {
+        final int fullWords = signatureLength / 8;
+        for (int w = 0; w < fullWords; w++) {
+            dest[offset + w] = (long) LONG_VIEW.get(signature, w * 8);
+        }
+        if (fullWords < words) {
+            long value = 0;
+            for (int i = fullWords * 8; i < signatureLength; i++) {
+                value |= (signature[i] & 0xFFL) << i % 8 * 8;
+            }
+            dest[offset + fullWords] = value;
+        }
+    }
+
+    private void checkLength(final byte[] signature) {
+        if (signature == null || signature.length != signatureLength) {
+            throw new IllegalArgumentException("The length of signature is not " + signatureLength);
+        }
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    /**
+     * A signature and its similarity to a query.
+     *
+     * @param index the index of the signature
+     * @param similarity similarity (0 to 1.0f)
+     */
+    public record Match(int index, float similarity) {
+    }
+
+    /**
+     * Bounded max-heap of (distance, index) keys packed into longs.
+     */
+    private static class TopKHeap {
+        private final long[] keys;
+
+        private int size;
+
+        TopKHeap(final int k) {
+            keys = new long[k];
+        }
+
+        void offer(final int distance, final int index) {
+            offer((long) distance << 32 | index);
+        }
+
+        void offer(final long key) {
+            if (size < keys.length) {
+                int i = size++;
+                while (i > 0) {
+                    final int parent = (i - 1) >>> 1;
+                    if (keys[parent] >= key) {
+                        break;
+                    }
+                    keys[i] = keys[parent];
+                    i = parent;
+                }
+                keys[i] = key;
+            } else if (key < keys[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && keys[child + 1] > keys[child]) {
+                        child++;
+                    }
+                    if (keys[child] <= key) {
+                        break;
+                    }
+                    keys[i] = keys[child];
+                    i = child;
+                }
+                keys[i] = key;
+            }
+        }
+
+        void merge(final TopKHeap other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.keys[i]);
+            }
+        }
+
+        long[] sortedKeys() {
+            final long[] sorted = Arrays.copyOf(keys, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    private class CompareAllAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] query;
+
+        private final float[] out;
+
+        private final int from;
+
+        private final int to;
+
+        CompareAllAction(final long[] query, final float[] out, final int from, final int to) {
+            this.query = query;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                compareAll(query, out, from, to);
+                return;
+            }
+            final int mid = (from + to) >>> 1;
+            invokeAll(new CompareAllAction(query, out, from, mid), new CompareAllAction(query, out, mid, to));
+        }
+    }
+
+    private class TopKTask extends RecursiveTask<TopKHeap> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] query;
+
+        private final int k;
+
+        private final int from;
+
+        private final int to;
+
+        TopKTask(final long[] query, final int k, final int from, final int to) {
+            this.query = query;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopKHeap compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return topK(query, k, from, to);
+            }
+            final int mid = (from + to) >>> 1;
+            final TopKTask left = new TopKTask(query, k, from, mid);
+            left.fork();
+            final TopKHeap heap = new TopKTask(query, k, mid, to).compute();
+            heap.merge(left.join());
+            return heap;
+        }
+    }
+}
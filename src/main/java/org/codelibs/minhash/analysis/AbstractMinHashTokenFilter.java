@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.codelibs.minhash.metrics.MinHashInstrumentation;
+import org.codelibs.minhash.metrics.MinHashMetrics;
+import org.codelibs.minhash.util.FastBitSet;
+
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Base class of token filters which consume all tokens and emit
+ * a single b-bit MinHash signature as a base64 token.
+ * The signature is also set to {@link MinHashSignatureAttribute}, and the base64 term
+ * is not created if {@link MinHashSignatureAttribute#isTermRequired()} is false.
+ *
+ * @author shinsuke
+ *
+ */
+public abstract class AbstractMinHashTokenFilter extends TokenFilter {
+
+    protected final CharTermAttribute termAttr = addAttribute(CharTermAttribute.class);
+
+    private final PositionIncrementAttribute posIncrAttr = addAttribute(PositionIncrementAttribute.class);
+
+    private final OffsetAttribute offsetAttr = addAttribute(OffsetAttribute.class);
+
+    private final MinHashSignatureAttribute signatureAttr = addAttribute(MinHashSignatureAttribute.class);
+
+    protected final int hashBit;
+
+    private boolean emitted;
+
+    protected AbstractMinHashTokenFilter(final TokenStream input, final int hashBit) {
+        super(input);
+        this.hashBit = hashBit;
+    }
+
+    @Override
+    public final boolean incrementToken() throws IOException {
+        final MinHashMetrics metrics = MinHashInstrumentation.getMetrics();
+        final long start = metrics == null ? 0L : System.nanoTime();
+        int numOfTokens = 0;
+        while (input.incrementToken()) {
+            addToken();
+            numOfTokens++;
+        }
+
+        if (emitted) {
+            return false;
+        }
+        emitted = true;
+
+        final long packStart = metrics == null ? 0L : System.nanoTime();
+        final byte[] signature = calcMinHash(getMinHashValues(), hashBit);
+        if (metrics != null) {
+            metrics.signatureCreated(numOfTokens, packStart - start, signature.length, System.nanoTime() - packStart);
+        }
+        signatureAttr.setSignature(signature);
+        if (signatureAttr.isTermRequired()) {
+            final String minHash = BaseEncoding.base64().encode(signature);
+            termAttr.setEmpty().append(minHash);
+            offsetAttr.setOffset(0, minHash.length());
+        } else {
+            termAttr.setEmpty();
+            offsetAttr.setOffset(0, 0);
+        }
+        posIncrAttr.setPositionIncrement(0);
+
+        return true;
+    }
+
+    /**
+     * Updates minimum hash values by the current token in {@link #termAttr}.
+     */
+    protected abstract void addToken();
+
+    /**
+     * Returns minimum hash values after all tokens are consumed.
+     *
+     * @return minimum hash values
+     */
+    protected abstract long[] getMinHashValues();
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        emitted = false;
+    }
+
+    /**
+     * Converts minimum hash values to a byte array representation.
+     * This method extracts the least significant bits from each hash value
+     * according to the specified bit depth (hashBit parameter).
+     *
+     * @param minHashValues array of minimum hash values computed from tokens
+     * @param hashBit number of bits to extract from each hash value (typically 1, 2, 4, or 8)
+     * @return byte array containing the b-bit MinHash signature
+     */
+    protected static byte[] calcMinHash(final long[] minHashValues, final int hashBit) {
+        final int nbits = minHashValues.length * hashBit;
+        final FastBitSet bitSet = new FastBitSet(nbits);
+        final int width = Math.min(hashBit, 64);
+        final long mask = width == 64 ? -1L : (1L << width) - 1;
+        // Collect bits into a 64-bit word and write it at once.
+        long word = 0L;
+        int used = 0;
+        int pos = 0;
+        for (final long value : minHashValues) {
+            final long bits = value & mask;
+            word |= bits << used;
+            if (used + width >= 64) {
+                bitSet.setBits(pos, word, 64);
+                pos += 64;
+                final int written = 64 - used;
+                word = written == 64 ? 0L : bits >>> written;
+                used = used + width - 64;
+            } else {
+                used += width;
+            }
+            if (hashBit > width) {
+                if (used > 0) {
+                    bitSet.setBits(pos, word, used);
+                }
+                pos += used + hashBit - width;
+                word = 0L;
+                used = 0;
+            }
+        }
+        bitSet.setBits(pos, word, used);
+        return bitSet.toByteArray();
+    }
+
+}
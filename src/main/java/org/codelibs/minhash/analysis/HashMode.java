@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+/**
+ * Strategy used by {@link MinHashTokenFilter} to derive the k hash values of a token.
+ *
+ * @author shinsuke
+ *
+ */
+public enum HashMode {
+
+    /**
+     * Runs every hash function on every token.
+     * This is the original behavior and keeps signatures bit-for-bit compatible.
+     */
+    INDEPENDENT,
+
+    /**
+     * Hashes a token once and derives k values with universal hash functions
+     * ((a * h + b) mod p, p = 2^61 - 1).
+     */
+    UNIVERSAL,
+
+    /**
+     * Hashes a token once and derives k values by double hashing (h1 + i * h2).
+     */
+    DOUBLE_HASHING,
+
+    /**
+     * Hashes a token once and assigns values by SuperMinHash (Ertl, 2017).
+     * The values of a token are correlated so that the variance of the similarity
+     * is smaller than the other modes with the same number of values.
+     */
+    SUPER_MINHASH;
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import org.apache.lucene.util.Attribute;
+
+/**
+ * This attribute holds a MinHash signature as bytes.
+ * A consumer which reads only this attribute can set {@link #setTermRequired(boolean)} to false,
+ * and then the filter does not encode the signature to a base64 term.
+ *
+ * @author shinsuke
+ *
+ */
+public interface MinHashSignatureAttribute extends Attribute {
+
+    /**
+     * Returns the signature.
+     *
+     * @return the b-bit MinHash signature, or null if it is not calculated
+     */
+    byte[] getSignature();
+
+    /**
+     * Sets the signature.
+     *
+     * @param signature the b-bit MinHash signature
+     */
+    void setSignature(byte[] signature);
+
+    /**
+     * Returns true if the filter writes the base64 signature to the term.
+     *
+     * @return true if the term is required (default)
+     */
+    boolean isTermRequired();
+
+    /**
+     * Sets whether the filter writes the base64 signature to the term.
+     * This value is not changed by {@link #clear()}.
+     *
+     * @param termRequired false to skip the term
+     */
+    void setTermRequired(boolean termRequired);
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.util.Arrays;
+
+import org.apache.lucene.util.AttributeImpl;
+import org.apache.lucene.util.AttributeReflector;
+
+/**
+ * Default implementation of {@link MinHashSignatureAttribute}.
+ *
+ * @author shinsuke
+ *
+ */
+public class MinHashSignatureAttributeImpl extends AttributeImpl implements MinHashSignatureAttribute {
+
+    private byte[] signature;
+
+    private boolean termRequired = true;
+
+    @Override
+    public byte[] getSignature() {
+        return signature;
+    }
+
+    @Override
+    public void setSignature(final byte[] signature) {
+        this.signature = signature;
+    }
+
+    @Override
+    public boolean isTermRequired() {
+        return termRequired;
+    }
+
+    @Override
+    public void setTermRequired(final boolean termRequired) {
+        this.termRequired = termRequired;
+    }
+
+    @Override
+    public void clear() {
+        signature = null;
+    }
+
+    @Override
+    public void reflectWith(final AttributeReflector reflector) {
+        reflector.reflect(MinHashSignatureAttribute.class, "signature", signature);
+        reflector.reflect(MinHashSignatureAttribute.class, "termRequired", termRequired);
+    }
+
+    @Override
+    public void copyTo(final AttributeImpl target) {
+        final MinHashSignatureAttribute attr = (MinHashSignatureAttribute) target;
+        attr.setSignature(signature);
+        attr.setTermRequired(termRequired);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof final MinHashSignatureAttributeImpl other)) {
+            return false;
+        }
+        return termRequired == other.termRequired && Arrays.equals(signature, other.signature);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(signature) * 31 + (termRequired ? 1 : 0);
+    }
+}
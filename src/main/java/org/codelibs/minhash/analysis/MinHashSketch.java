@@ -0,0 +1,651 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.codelibs.minhash.util.Murmur3;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+
+/**
+ * Minimum hash values which can be updated token by token and merged.
+ * A sketch with seed and num gives the same signature as {@link MinHashTokenFilter}
+ * with the same parameters for the same tokens, so that a signature can be extended
+ * by new text without processing the old text again.
+ * A large text can also be split into chunks at token boundaries, and sketches of the chunks
+ * which are calculated on other nodes can be merged into the same signature as a single pass.
+ * This class is not thread-safe.
+ *
+ * @author shinsuke
+ *
+ */
+public class MinHashSketch {
+
+    private static final long MERSENNE_PRIME_61 = (1L << 61) - 1;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final byte VERSION = 1;
+
+    private static final byte EMPTY_VERSION = 2;
+
+    private static final int HEADER_SIZE = 10;
+
+    // the largest num of a deserialized sketch, to reject a broken header before allocation
+    private static final int MAX_NUM = 1 << 20;
+
+    private final HashFunction[] hashFunctions;
+
+    private final int seed;
+
+    private final HashMode hashMode;
+
+    private final long[] coefficientA;
+
+    private final long[] coefficientB;
+
+    private final long[] hashValues = new long[2];
+
+    final long[] minHashValues;
+
+    // state of SuperMinHash
+    private final double[] ranks;
+
+    private final int[] permutation;
+
+    private final int[] marks;
+
+    private final int[] histogram;
+
+    private int maxIndex;
+
+    private int numOfElements;
+
+    private char[] charBuffer;
+
+    /**
+     * Creates an empty sketch with {@link HashMode#INDEPENDENT}.
+     *
+     * @param seed a base seed
+     * @param num the number of hash functions
+     */
+    public MinHashSketch(final int seed, final int num) {
+        this(seed, num, HashMode.INDEPENDENT);
+    }
+
+    /**
+     * Creates an empty sketch which hashes tokens by murmur3_128 with seeds from seed to seed + num - 1.
+     *
+     * @param seed a base seed
+     * @param num the number of hash functions
+     * @param hashMode a strategy to derive hash values
+     */
+    public MinHashSketch(final int seed, final int num, final HashMode hashMode) {
+        this(null, seed, num, hashMode);
+    }
+
+    MinHashSketch(final HashFunction[] hashFunctions, final HashMode hashMode) {
+        this(hashFunctions, 0, hashFunctions.length, hashMode);
+    }
+
+    private MinHashSketch(final HashFunction[] hashFunctions, final int seed, final int num, final HashMode hashMode) {
+        if (num <= 0) {
+            throw new IllegalArgumentException("num is above 0.");
+        }
+        this.hashFunctions = hashFunctions;
+        this.seed = seed;
+        this.hashMode = hashMode;
+        minHashValues = new long[num];
+        if (hashMode == HashMode.UNIVERSAL) {
+            coefficientA = new long[num];
+            coefficientB = new long[num];
+            for (int i = 0; i < num; i++) {
+                final HashFunction hashFunction = hashFunctions != null ? hashFunctions[i] : Hashing.murmur3_128(seed + i);
+                coefficientA[i] = (hashFunction.hashLong(i).asLong() >>> 3) % (MERSENNE_PRIME_61 - 1) + 1;
+                coefficientB[i] = (hashFunction.hashLong(~i).asLong() >>> 3) % MERSENNE_PRIME_61;
+            }
+        } else {
+            coefficientA = null;
+            coefficientB = null;
+        }
+        if (hashMode == HashMode.SUPER_MINHASH) {
+            ranks = new double[num];
+            permutation = new int[num];
+            marks = new int[num];
+            histogram = new int[num];
+        } else {
+            ranks = null;
+            permutation = null;
+            marks = null;
+            histogram = null;
+        }
+        clear();
+    }
+
+    /**
+     * Adds a token.
+     *
+     * @param token a token
+     * @return this sketch
+     */
+    public MinHashSketch update(final CharSequence token) {
+        final int length = token.length();
+        if (charBuffer == null || charBuffer.length < length) {
+            charBuffer = new char[Math.max(length, 16)];
+        }
+        for (int i = 0; i < length; i++) {
+            charBuffer[i] = token.charAt(i);
+        }
+        return update(charBuffer, 0, length);
+    }
+
+    /**
+     * Adds a token in a char array.
+     *
+     * @param chars a char array
+     * @param offset the start position of the token
+     * @param length the length of the token
+     * @return this sketch
+     */
+    public MinHashSketch update(final char[] chars, final int offset, final int length) {
+        final int funcSize = minHashValues.length;
+        switch (hashMode) {
+        case SUPER_MINHASH: {
+            final long hash = hashFunctions == null ? Murmur3.hash64(seed, chars, offset, length)
+                    : hashFunctions[0].hashUnencodedChars(new String(chars, offset, length)).asLong();
+            updateSuperMinHash(hash);
+            break;
+        }
+        case UNIVERSAL: {
+            final long hash = hashFunctions == null ? Murmur3.hash64(seed, chars, offset, length)
+                    : hashFunctions[0].hashUnencodedChars(new String(chars, offset, length)).asLong();
+            updateUniversal(hash);
+            break;
+        }
+        case DOUBLE_HASHING: {
+            if (hashFunctions == null) {
+                Murmur3.hash128(seed, chars, offset, length, hashValues);
+            } else {
+                final byte[] bytes = hashFunctions[0].hashUnencodedChars(new String(chars, offset, length)).asBytes();
+                hashValues[0] = Longs.fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
+                hashValues[1] = Longs.fromBytes(bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
+            }
+            updateDoubleHashing(hashValues[0], hashValues[1]);
+            break;
+        }
+        default: {
+            if (hashFunctions == null) {
+                for (int i = 0; i < funcSize; i++) {
+                    final long value = Murmur3.hash64(seed + i, chars, offset, length);
+                    if (value < minHashValues[i]) {
+                        minHashValues[i] = value;
+                    }
+                }
+            } else {
+                final String term = new String(chars, offset, length);
+                for (int i = 0; i < funcSize; i++) {
+                    final long value = hashFunctions[i].hashUnencodedChars(term).asLong();
+                    if (value < minHashValues[i]) {
+                        minHashValues[i] = value;
+                    }
+                }
+            }
+            break;
+        }
+        }
+        return this;
+    }
+
+    /**
+     * Adds an element by its 64-bit hash value, such as a rolling hash of a shingle.
+     * The element is not hashed again in {@link HashMode#UNIVERSAL} and {@link HashMode#SUPER_MINHASH},
+     * and num values are derived from the hash in the other modes.
+     * The values are different from {@link #update(char[], int, int)} for the same token.
+     * The seed is mixed into the hash in all modes, so that sketches of different seeds are independent.
+     *
+     * @param elementHash a hash value of an element
+     * @return this sketch
+     */
+    public MinHashSketch update(final long elementHash) {
+        final long hash = elementHash ^ mix64(seed * GOLDEN_GAMMA);
+        switch (hashMode) {
+        case SUPER_MINHASH:
+            updateSuperMinHash(hash);
+            break;
+        case UNIVERSAL:
+            updateUniversal(hash);
+            break;
+        case DOUBLE_HASHING:
+            updateDoubleHashing(hash, mix64(hash));
+            break;
+        default: {
+            final int funcSize = minHashValues.length;
+            for (int i = 0; i < funcSize; i++) {
+                final long value = hashFunctions == null ? mix64(hash + (seed + i) * GOLDEN_GAMMA)
+                        : hashFunctions[i].hashLong(hash).asLong();
+                if (value < minHashValues[i]) {
+                    minHashValues[i] = value;
+                }
+            }
+            break;
+        }
+        }
+        return this;
+    }
+
+    /**
+     * Updates minimum values by hash values of a token which are computed outside, such as by {@link TokenHashCache}.
+     */
+    void updateValues(final long[] values) {
+        final int funcSize = minHashValues.length;
+        for (int i = 0; i < funcSize; i++) {
+            if (values[i] < minHashValues[i]) {
+                minHashValues[i] = values[i];
+            }
+        }
+    }
+
+    private void updateUniversal(final long hash) {
+        final int funcSize = minHashValues.length;
+        final long x = mod61(hash >>> 3);
+        for (int i = 0; i < funcSize; i++) {
+            final long value = universalHash(coefficientA[i], coefficientB[i], x);
+            if (value < minHashValues[i]) {
+                minHashValues[i] = value;
+            }
+        }
+    }
+
+    private void updateDoubleHashing(final long h1, final long h2) {
+        final int funcSize = minHashValues.length;
+        final long step = h2 | 1L;
+        long value = h1;
+        for (int i = 0; i < funcSize; i++) {
+            if (value < minHashValues[i]) {
+                minHashValues[i] = value;
+            }
+            value += step;
+        }
+    }
+
+    /**
+     * Assigns values of an element to num slots by a random permutation which is
+     * generated by the hash. The j-th rank is in [j, j + 1), so the loop stops
+     * when j exceeds the largest rank of slots.
+     * A slot keeps the element with the smallest rank, and its value is a mixed hash of
+     * the element and j, because the low bits of the rank are not random.
+     */
+    private void updateSuperMinHash(final long hash) {
+        final int num = minHashValues.length;
+        if (numOfElements == Integer.MAX_VALUE) {
+            Arrays.fill(marks, -1);
+            numOfElements = 0;
+        }
+        final int element = numOfElements++;
+        long state = hash;
+        for (int j = 0; j <= maxIndex; j++) {
+            final double r = (mix64(state += GOLDEN_GAMMA) >>> 11) * 0x1.0p-53;
+            final int k = j + (int) Math.unsignedMultiplyHigh(mix64(state += GOLDEN_GAMMA), num - j);
+            if (marks[j] != element) {
+                marks[j] = element;
+                permutation[j] = j;
+            }
+            if (marks[k] != element) {
+                marks[k] = element;
+                permutation[k] = k;
+            }
+            final int slot = permutation[k];
+            permutation[k] = permutation[j];
+            permutation[j] = slot;
+            final double rank = r + j;
+            if (rank < ranks[slot]) {
+                final int oldIndex = histogramIndex(ranks[slot]);
+                final int newIndex = histogramIndex(rank);
+                ranks[slot] = rank;
+                minHashValues[slot] = Murmur3.fmix64(hash + j * GOLDEN_GAMMA);
+                if (newIndex < oldIndex) {
+                    histogram[oldIndex]--;
+                    histogram[newIndex]++;
+                    while (histogram[maxIndex] == 0) {
+                        maxIndex--;
+                    }
+                }
+            }
+        }
+    }
+
+    private int histogramIndex(final double rank) {
+        // (int) of the infinite rank of an empty slot is Integer.MAX_VALUE
+        return Math.min((int) rank, minHashValues.length - 1);
+    }
+
+    private void rebuildHistogram() {
+        Arrays.fill(histogram, 0);
+        for (final double rank : ranks) {
+            histogram[histogramIndex(rank)]++;
+        }
+        maxIndex = histogram.length - 1;
+        while (histogram[maxIndex] == 0) {
+            maxIndex--;
+        }
+    }
+
+    private static long mix64(final long value) {
+        long z = value;
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+
+    /**
+     * Adds all tokens of a token stream.
+     * The stream is reset and ended, but not closed.
+     * It should be created by an analyzer without {@link MinHashTokenFilter},
+     * such as a tokenizer of the MinHash analyzer.
+     *
+     * @param stream a token stream
+     * @return this sketch
+     * @throws IOException if the stream fails
+     */
+    public MinHashSketch update(final TokenStream stream) throws IOException {
+        final CharTermAttribute termAttr = stream.addAttribute(CharTermAttribute.class);
+        stream.reset();
+        while (stream.incrementToken()) {
+            update(termAttr.buffer(), 0, termAttr.length());
+        }
+        stream.end();
+        return this;
+    }
+
+    /**
+     * Merges the other sketch into this sketch by taking element-wise minimum values.
+     * The result is the same as the sketch updated by tokens of both sketches.
+     *
+     * @param other a sketch with the same seed, num and hash mode
+     * @return this sketch
+     */
+    public MinHashSketch merge(final MinHashSketch other) {
+        if (hashFunctions != other.hashFunctions || seed != other.seed || hashMode != other.hashMode
+                || minHashValues.length != other.minHashValues.length) {
+            throw new IllegalArgumentException("The sketch has different parameters.");
+        }
+        if (ranks != null) {
+            for (int i = 0; i < ranks.length; i++) {
+                if (other.ranks[i] < ranks[i]) {
+                    ranks[i] = other.ranks[i];
+                    minHashValues[i] = other.minHashValues[i];
+                }
+            }
+            rebuildHistogram();
+            return this;
+        }
+        for (int i = 0; i < minHashValues.length; i++) {
+            if (other.minHashValues[i] < minHashValues[i]) {
+                minHashValues[i] = other.minHashValues[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Merges sketches into a new sketch.
+     *
+     * @param sketches sketches with the same seed, num and hash mode
+     * @return a merged sketch
+     */
+    public static MinHashSketch mergeAll(final Iterable<MinHashSketch> sketches) {
+        final Iterator<MinHashSketch> iterator = sketches.iterator();
+        if (!iterator.hasNext()) {
+            throw new IllegalArgumentException("sketches is empty.");
+        }
+        final MinHashSketch merged = iterator.next().copy();
+        while (iterator.hasNext()) {
+            merged.merge(iterator.next());
+        }
+        return merged;
+    }
+
+    /**
+     * Returns a copy of this sketch.
+     *
+     * @return a new sketch with the same parameters and values
+     */
+    public MinHashSketch copy() {
+        final MinHashSketch sketch = new MinHashSketch(hashFunctions, seed, minHashValues.length, hashMode);
+        System.arraycopy(minHashValues, 0, sketch.minHashValues, 0, minHashValues.length);
+        if (ranks != null) {
+            System.arraycopy(ranks, 0, sketch.ranks, 0, ranks.length);
+            sketch.rebuildHistogram();
+        }
+        return sketch;
+    }
+
+    /**
+     * Removes all tokens.
+     */
+    public void clear() {
+        Arrays.fill(minHashValues, Long.MAX_VALUE);
+        if (histogram != null) {
+            Arrays.fill(ranks, Double.POSITIVE_INFINITY);
+            Arrays.fill(marks, -1);
+            Arrays.fill(histogram, 0);
+            histogram[histogram.length - 1] = histogram.length;
+            maxIndex = histogram.length - 1;
+            numOfElements = 0;
+        }
+    }
+
+    /**
+     * Returns b-bit MinHash signature.
+     *
+     * @param hashBit the number of hash bits
+     * @return the same value as {@code MinHash.calculate} with the same parameters
+     */
+    public byte[] toSignature(final int hashBit) {
+        return AbstractMinHashTokenFilter.calcMinHash(minHashValues, hashBit);
+    }
+
+    /**
+     * Returns a copy of minimum hash values.
+     *
+     * @return minimum hash values (Long.MAX_VALUE if no token is added)
+     */
+    public long[] getMinHashValues() {
+        return minHashValues.clone();
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    public int getNum() {
+        return minHashValues.length;
+    }
+
+    public HashMode getHashMode() {
+        return hashMode;
+    }
+
+    /**
+     * Serializes this sketch.
+     * The format is a version byte, a hash mode byte, seed and num as big-endian ints,
+     * and then num minimum values as big-endian longs.
+     * {@link HashMode#SUPER_MINHASH} has num ranks as big-endian doubles after the values.
+     * An empty sketch has no values, because all of them are Long.MAX_VALUE.
+     *
+     * @return bytes which can be restored by {@link #fromByteArray(byte[])}
+     */
+    public byte[] toByteArray() {
+        if (hashFunctions != null) {
+            throw new IllegalStateException("A sketch with hash functions cannot be serialized.");
+        }
+        final boolean empty = isEmpty();
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (empty ? 0 : payloadLength(hashMode, minHashValues.length)));
+        buffer.put(empty ? EMPTY_VERSION : VERSION);
+        buffer.put((byte) hashMode.ordinal());
+        buffer.putInt(seed);
+        buffer.putInt(minHashValues.length);
+        if (!empty) {
+            for (final long value : minHashValues) {
+                buffer.putLong(value);
+            }
+            if (ranks != null) {
+                for (final double rank : ranks) {
+                    buffer.putDouble(rank);
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Writes this sketch in the format of {@link #toByteArray()}.
+     *
+     * @param out an output stream
+     * @throws IOException if the stream fails
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        out.write(toByteArray());
+    }
+
+    /**
+     * Restores a sketch serialized by {@link #toByteArray()}.
+     *
+     * @param data serialized bytes
+     * @return a sketch
+     */
+    public static MinHashSketch fromByteArray(final byte[] data) {
+        if (data.length < HEADER_SIZE) {
+            throw new IllegalArgumentException("Unsupported format.");
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        final Header header = readHeader(buffer);
+        if (buffer.remaining() != header.payloadLength()) {
+            throw new IllegalArgumentException("Invalid length: " + data.length);
+        }
+        return header.createSketch(buffer);
+    }
+
+    /**
+     * Reads a sketch written by {@link #writeTo(OutputStream)}.
+     *
+     * @param in an input stream
+     * @return a sketch
+     * @throws IOException if the stream fails or ends
+     */
+    public static MinHashSketch readFrom(final InputStream in) throws IOException {
+        final DataInputStream input = new DataInputStream(in);
+        final byte[] headerBytes = new byte[HEADER_SIZE];
+        input.readFully(headerBytes);
+        final Header header = readHeader(ByteBuffer.wrap(headerBytes));
+        // read the payload before allocation so that a truncated stream does not allocate num values
+        final int length = header.payloadLength();
+        final byte[] payload = input.readNBytes(length);
+        if (payload.length != length) {
+            throw new EOFException();
+        }
+        return header.createSketch(ByteBuffer.wrap(payload));
+    }
+
+    private static Header readHeader(final ByteBuffer buffer) {
+        final byte version = buffer.get();
+        if (version != VERSION && version != EMPTY_VERSION) {
+            throw new IllegalArgumentException("Unsupported format.");
+        }
+        final int mode = buffer.get();
+        if (mode < 0 || mode >= HashMode.values().length) {
+            throw new IllegalArgumentException("Unknown hash mode: " + mode);
+        }
+        final int seed = buffer.getInt();
+        final int num = buffer.getInt();
+        if (num <= 0 || num > MAX_NUM) {
+            throw new IllegalArgumentException("Invalid num: " + num);
+        }
+        return new Header(version, HashMode.values()[mode], seed, num);
+    }
+
+    private record Header(byte version, HashMode hashMode, int seed, int num) {
+
+        boolean isEmpty() {
+            return version == EMPTY_VERSION;
+        }
+
+        int payloadLength() {
+            return isEmpty() ? 0 : MinHashSketch.payloadLength(hashMode, num);
+        }
+
+        MinHashSketch createSketch(final ByteBuffer payload) {
+            final MinHashSketch sketch = new MinHashSketch(seed, num, hashMode);
+            if (!isEmpty()) {
+                payload.asLongBuffer().get(sketch.minHashValues);
+                if (sketch.ranks != null) {
+                    payload.position(payload.position() + num * Long.BYTES).asDoubleBuffer().get(sketch.ranks);
+                    sketch.rebuildHistogram();
+                }
+            }
+            return sketch;
+        }
+    }
+
+    private static int payloadLength(final HashMode hashMode, final int num) {
+        return (hashMode == HashMode.SUPER_MINHASH ? 2 : 1) * num * Long.BYTES;
+    }
+
+    /**
+     * Returns true if no token is added.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        for (final long value : minHashValues) {
+            if (value != Long.MAX_VALUE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes (a * x + b) mod (2^61 - 1) without overflow.
+     *
+     * @param a a coefficient in [1, p)
+     * @param b a coefficient in [0, p)
+     * @param x a value in [0, p)
+     * @return a hash value in [0, p)
+     */
+    static long universalHash(final long a, final long b, final long x) {
+        final long lo = a * x;
+        final long hi = Math.multiplyHigh(a, x);
+        return mod61((lo & MERSENNE_PRIME_61) + (lo >>> 61 | hi << 3) + b);
+    }
+
+    private static long mod61(final long value) {
+        final long r = (value & MERSENNE_PRIME_61) + (value >>> 61);
+        return r >= MERSENNE_PRIME_61 ? r - MERSENNE_PRIME_61 : r;
+    }
+}
@@ -16,105 +16,109 @@
 package org.codelibs.minhash.analysis;
 
 import java.io.IOException;
-import java.util.Arrays;
 
-import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
-import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
-import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
-import org.codelibs.minhash.util.FastBitSet;
 
-import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
-import com.google.common.io.BaseEncoding;
 
 /**
  * This class is a token filter to calculate MinHash value.
+ * Tokens are reduced by {@link MinHashSketch}.
  *
  * @author shinsuke
  *
  */
-public class MinHashTokenFilter extends TokenFilter {
+public class MinHashTokenFilter extends AbstractMinHashTokenFilter {
 
-    private final CharTermAttribute termAttr = addAttribute(CharTermAttribute.class);
+    private final MinHashSketch sketch;
 
-    private final PositionIncrementAttribute posIncrAttr = addAttribute(PositionIncrementAttribute.class);
+    private final TokenHashCache tokenHashCache;
 
-    private final OffsetAttribute offsetAttr = addAttribute(OffsetAttribute.class);
-
-    private final HashFunction[] hashFunctions;
+    public MinHashTokenFilter(final TokenStream input, final HashFunction[] hashFunctions, final int hashBit) {
+        this(input, hashFunctions, hashBit, HashMode.INDEPENDENT);
+    }
 
-    private final int hashBit;
+    /**
+     * Creates a filter which derives hash values by the given mode.
+     * In {@link HashMode#UNIVERSAL} and {@link HashMode#DOUBLE_HASHING} modes,
+     * a token is hashed only by the first hash function and the others are used to
+     * generate coefficients.
+     *
+     * @param input a token stream
+     * @param hashFunctions hash functions (the number of them is the number of MinHash values)
+     * @param hashBit the number of hash bits
+     * @param hashMode a strategy to derive hash values
+     */
+    public MinHashTokenFilter(final TokenStream input, final HashFunction[] hashFunctions, final int hashBit, final HashMode hashMode) {
+        this(input, hashFunctions, 0, hashFunctions.length, hashBit, hashMode);
+    }
 
-    private final long[] minHashValues;
+    /**
+     * Creates a filter which hashes the term buffer in place by murmur3_128 with seeds from seed to seed + num - 1.
+     * The result is the same as the filter with {@code MinHash.createHashFunctions(seed, num)},
+     * but no object is created for each token.
+     *
+     * @param input a token stream
+     * @param seed a base seed
+     * @param num the number of hash functions
+     * @param hashBit the number of hash bits
+     * @param hashMode a strategy to derive hash values
+     */
+    public MinHashTokenFilter(final TokenStream input, final int seed, final int num, final int hashBit, final HashMode hashMode) {
+        this(input, null, seed, num, hashBit, hashMode);
+    }
 
-    private String minHash;
+    /**
+     * Creates a filter which takes hash values of terms from the cache in {@link HashMode#INDEPENDENT}.
+     * The result is the same as the filter with the hash functions of the cache.
+     *
+     * @param input a token stream
+     * @param tokenHashCache a cache of hash values, which can be shared by filters
+     * @param hashBit the number of hash bits
+     */
+    public MinHashTokenFilter(final TokenStream input, final TokenHashCache tokenHashCache, final int hashBit) {
+        super(input, hashBit);
+        this.tokenHashCache = tokenHashCache;
+        sketch = new MinHashSketch(0, tokenHashCache.getNum(), HashMode.INDEPENDENT);
+    }
 
-    public MinHashTokenFilter(final TokenStream input, final HashFunction[] hashFunctions, final int hashBit) {
-        super(input);
-        this.hashFunctions = hashFunctions;
-        this.hashBit = hashBit;
-        minHashValues = new long[hashFunctions.length];
+    private MinHashTokenFilter(final TokenStream input, final HashFunction[] hashFunctions, final int seed, final int num,
+            final int hashBit, final HashMode hashMode) {
+        super(input, hashBit);
+        tokenHashCache = null;
+        sketch = hashFunctions != null ? new MinHashSketch(hashFunctions, hashMode) : new MinHashSketch(seed, num, hashMode);
     }
 
     @Override
-    public final boolean incrementToken() throws IOException {
-        final int funcSize = hashFunctions.length;
-        while (input.incrementToken()) {
-            final String term = termAttr.toString();
-            for (int i = 0; i < funcSize; i++) {
-                final HashCode hashCode = hashFunctions[i].hashUnencodedChars(term);
-                final long value = hashCode.asLong();
-                if (value < minHashValues[i]) {
-                    minHashValues[i] = value;
-                }
-            }
+    protected void addToken() {
+        if (tokenHashCache != null) {
+            sketch.updateValues(tokenHashCache.get(termAttr.buffer(), termAttr.length()));
+        } else {
+            sketch.update(termAttr.buffer(), 0, termAttr.length());
         }
+    }
 
-        if (minHash != null) {
-            return false;
-        }
-
-        minHash = BaseEncoding.base64().encode(calcMinHash(minHashValues, hashBit));
-        termAttr.setEmpty().append(minHash);
-        posIncrAttr.setPositionIncrement(0);
-        offsetAttr.setOffset(0, minHash.length());
-
-        return true;
+    @Override
+    protected long[] getMinHashValues() {
+        return sketch.minHashValues;
     }
 
     @Override
     public void reset() throws IOException {
         super.reset();
-        Arrays.fill(minHashValues, Long.MAX_VALUE);
-        minHash = null;
+        sketch.clear();
     }
 
     /**
-     * Converts minimum hash values to a byte array representation.
-     * This method extracts the least significant bits from each hash value
-     * according to the specified bit depth (hashBit parameter).
+     * Computes (a * x + b) mod (2^61 - 1) without overflow.
      *
-     * @param minHashValues array of minimum hash values computed from tokens
-     * @param hashBit number of bits to extract from each hash value (typically 1, 2, 4, or 8)
-     * @return byte array containing the b-bit MinHash signature
+     * @param a a coefficient in [1, p)
+     * @param b a coefficient in [0, p)
+     * @param x a value in [0, p)
+     * @return a hash value in [0, p)
      */
-    protected static byte[] calcMinHash(final long[] minHashValues, final int hashBit) {
-        final int shift = 1;
-        final int radix = 1 << shift;
-        final long mask = radix - 1;
-        int pos = 0;
-        final int nbits = minHashValues.length * hashBit;
-        final FastBitSet bitSet = new FastBitSet(nbits);
-        for (long i : minHashValues) {
-            for (int j = 0; j < hashBit; j++) {
-                bitSet.set(pos, (int) (i & mask) == 1);
-                pos++;
-                i >>>= shift;
-            }
-        }
-        return bitSet.toByteArray();
+    protected static long universalHash(final long a, final long b, final long x) {
+        return MinHashSketch.universalHash(a, b, x);
     }
 
 }
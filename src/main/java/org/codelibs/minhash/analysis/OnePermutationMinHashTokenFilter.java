@@ -0,0 +1,210 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.codelibs.minhash.util.Murmur3;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * This class is a token filter to calculate MinHash value by one permutation hashing.
+ * Each token is hashed once and is put into one of num bins, and then
+ * empty bins are filled by densification.
+ *
+ * @author shinsuke
+ *
+ */
+public class OnePermutationMinHashTokenFilter extends AbstractMinHashTokenFilter {
+
+    private static final long EMPTY = Long.MAX_VALUE;
+
+    private static final long ROTATION_OFFSET = 0x9E3779B97F4A7C15L;
+
+    private final HashFunction hashFunction;
+
+    private final int hashSeed;
+
+    private final Densification densification;
+
+    private final long seed;
+
+    private final long[] minHashValues;
+
+    /**
+     * Creates a filter with optimal densification.
+     *
+     * @param input a token stream
+     * @param hashFunction a hash function for tokens
+     * @param num the number of bins (MinHash values)
+     * @param hashBit the number of hash bits
+     */
+    public OnePermutationMinHashTokenFilter(final TokenStream input, final HashFunction hashFunction, final int num, final int hashBit) {
+        this(input, hashFunction, num, hashBit, Densification.OPTIMAL);
+    }
+
+    /**
+     * Creates a filter.
+     *
+     * @param input a token stream
+     * @param hashFunction a hash function for tokens
+     * @param num the number of bins (MinHash values)
+     * @param hashBit the number of hash bits
+     * @param densification a strategy to fill empty bins
+     */
+    public OnePermutationMinHashTokenFilter(final TokenStream input, final HashFunction hashFunction, final int num, final int hashBit,
+            final Densification densification) {
+        this(input, hashFunction, 0, num, hashBit, densification);
+    }
+
+    /**
+     * Creates a filter which hashes the term buffer in place by murmur3_128 with the seed.
+     * The result is the same as the filter with {@code Hashing.murmur3_128(seed)},
+     * but no object is created for each token.
+     *
+     * @param input a token stream
+     * @param seed a seed for hash function
+     * @param num the number of bins (MinHash values)
+     * @param hashBit the number of hash bits
+     * @param densification a strategy to fill empty bins
+     */
+    public OnePermutationMinHashTokenFilter(final TokenStream input, final int seed, final int num, final int hashBit,
+            final Densification densification) {
+        this(input, null, seed, num, hashBit, densification);
+    }
+
+    private OnePermutationMinHashTokenFilter(final TokenStream input, final HashFunction hashFunction, final int hashSeed, final int num,
+            final int hashBit, final Densification densification) {
+        super(input, hashBit);
+        if (num <= 0) {
+            throw new IllegalArgumentException("num is above 0.");
+        }
+        this.hashFunction = hashFunction;
+        this.hashSeed = hashSeed;
+        this.densification = densification;
+        seed = (hashFunction != null ? hashFunction : Hashing.murmur3_128(hashSeed)).hashInt(num).asLong();
+        minHashValues = new long[num];
+    }
+
+    @Override
+    protected void addToken() {
+        final long value = hashFunction == null ? Murmur3.hash64(hashSeed, termAttr.buffer(), 0, termAttr.length())
+                : hashFunction.hashUnencodedChars(termAttr).asLong();
+        final int bin = (int) Math.unsignedMultiplyHigh(value, minHashValues.length);
+        if (value < minHashValues[bin]) {
+            minHashValues[bin] = value;
+        }
+    }
+
+    @Override
+    protected long[] getMinHashValues() {
+        densify(minHashValues, densification, seed);
+        return minHashValues;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        Arrays.fill(minHashValues, EMPTY);
+    }
+
+    /**
+     * Fills empty bins with values of non-empty bins.
+     * If all bins are empty, they are not changed.
+     *
+     * @param bins minimum hash values for each bin
+     * @param densification a strategy to fill empty bins
+     * @param seed a seed to choose bins in {@link Densification#OPTIMAL}
+     */
+    protected static void densify(final long[] bins, final Densification densification, final long seed) {
+        final int num = bins.length;
+        int filled = 0;
+        for (final long value : bins) {
+            if (value != EMPTY) {
+                filled++;
+            }
+        }
+        if (filled == 0 || filled == num) {
+            return;
+        }
+
+        if (densification == Densification.ROTATION) {
+            // Scan from right to left so that each empty bin takes the next non-empty bin on its right.
+            int last = num - 1;
+            while (bins[last] == EMPTY) {
+                last--;
+            }
+            long next = bins[last];
+            int distance = 0;
+            for (int i = last - 1 + num; i > last; i--) {
+                final int index = i % num;
+                if (bins[index] == EMPTY) {
+                    distance++;
+                    bins[index] = next + distance * ROTATION_OFFSET;
+                } else {
+                    next = bins[index];
+                    distance = 0;
+                }
+            }
+        } else {
+            final boolean[] empty = new boolean[num];
+            for (int i = 0; i < num; i++) {
+                empty[i] = bins[i] == EMPTY;
+            }
+            for (int i = 0; i < num; i++) {
+                if (!empty[i]) {
+                    continue;
+                }
+                long state = seed + i * ROTATION_OFFSET;
+                int index;
+                do {
+                    state = mix64(state + ROTATION_OFFSET);
+                    index = (int) Math.unsignedMultiplyHigh(state, num);
+                } while (empty[index]);
+                bins[i] = bins[index];
+            }
+        }
+    }
+
+    private static long mix64(final long value) {
+        long z = value;
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+
+    /**
+     * Strategy to fill empty bins.
+     */
+    public enum Densification {
+
+        /**
+         * Copies a value from a bin chosen by a universal hash of the empty bin
+         * (Shrivastava, 2017). This gives the smallest variance.
+         */
+        OPTIMAL,
+
+        /**
+         * Copies a value from the nearest non-empty bin on the right with an offset
+         * (Shrivastava and Li, 2014).
+         */
+        ROTATION;
+    }
+}
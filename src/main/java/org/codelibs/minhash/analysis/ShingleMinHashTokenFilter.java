@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.codelibs.minhash.util.Murmur3;
+import org.codelibs.minhash.util.RollingHash;
+
+/**
+ * This class is a token filter to calculate MinHash value of shingles.
+ * Word n-grams or character k-grams are hashed by a rolling hash over the window,
+ * so no term is created for each shingle as with ShingleFilter.
+ * Character k-grams continue across tokens with a space between them.
+ * If the input is shorter than the shingle size, the whole input is one shingle.
+ *
+ * @author shinsuke
+ *
+ */
+public class ShingleMinHashTokenFilter extends AbstractMinHashTokenFilter {
+
+    private final ShingleType shingleType;
+
+    private final int seed;
+
+    private final MinHashSketch sketch;
+
+    private final RollingHash rollingHash;
+
+    private boolean first;
+
+    private boolean added;
+
+    /**
+     * Creates a filter.
+     *
+     * @param input a token stream
+     * @param shingleType a unit of shingles
+     * @param shingleSize the number of words or characters in a shingle
+     * @param seed a base seed for hash function
+     * @param num the number of hash functions
+     * @param hashBit the number of hash bits
+     * @param hashMode a strategy to derive hash values
+     */
+    public ShingleMinHashTokenFilter(final TokenStream input, final ShingleType shingleType, final int shingleSize, final int seed,
+            final int num, final int hashBit, final HashMode hashMode) {
+        super(input, hashBit);
+        this.shingleType = shingleType;
+        this.seed = seed;
+        sketch = new MinHashSketch(seed, num, hashMode);
+        rollingHash = new RollingHash(shingleSize);
+        first = true;
+    }
+
+    @Override
+    protected void addToken() {
+        final char[] buffer = termAttr.buffer();
+        final int length = termAttr.length();
+        if (shingleType == ShingleType.WORD) {
+            add(Murmur3.hash64(seed, buffer, 0, length));
+        } else {
+            if (!first) {
+                add(' ');
+            }
+            for (int i = 0; i < length; i++) {
+                add(buffer[i]);
+            }
+        }
+        first = false;
+    }
+
+    private void add(final long value) {
+        if (rollingHash.add(value)) {
+            sketch.update(rollingHash.hash());
+            added = true;
+        }
+    }
+
+    @Override
+    protected long[] getMinHashValues() {
+        if (!added && rollingHash.size() > 0) {
+            sketch.update(rollingHash.hash());
+            added = true;
+        }
+        return sketch.minHashValues;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        sketch.clear();
+        rollingHash.clear();
+        first = true;
+        added = false;
+    }
+
+    /**
+     * Unit of shingles.
+     */
+    public enum ShingleType {
+
+        /**
+         * Shingles of consecutive tokens.
+         */
+        WORD,
+
+        /**
+         * Shingles of consecutive characters.
+         */
+        CHARACTER;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.codelibs.minhash.util.Murmur3;
+
+import com.google.common.hash.HashFunction;
+
+/**
+ * This class is a bounded cache of hash values of terms for {@link HashMode#INDEPENDENT}.
+ * In natural language a few thousand terms make up most tokens, so their num hash values
+ * are computed once and shared by filters with the same hash functions.
+ * The cache is a lock-free direct-mapped table: a term is stored in one slot and replaces
+ * the previous term in the slot. Entries are immutable, so they are read without locks.
+ * The number of slots is chosen so that the cache does not use more than the given bytes.
+ * Terms longer than {@link #MAX_TERM_LENGTH} are not cached.
+ *
+ * @author shinsuke
+ *
+ */
+public final class TokenHashCache {
+
+    /**
+     * The maximum number of chars of a cached term.
+     */
+    public static final int MAX_TERM_LENGTH = 32;
+
+    // object headers and references of an entry, a term and values, and a slot
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final HashFunction[] hashFunctions;
+
+    private final int seed;
+
+    private final int num;
+
+    private final Entry[] table;
+
+    private final int mask;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Creates a cache of murmur3_128 hash values with seeds from seed to seed + num - 1,
+     * which are the same as {@link MinHashTokenFilter} with the seed.
+     *
+     * @param seed a base seed
+     * @param num the number of hash functions
+     * @param maxBytes the maximum memory usage
+     */
+    public TokenHashCache(final int seed, final int num, final long maxBytes) {
+        this(null, seed, num, maxBytes);
+    }
+
+    /**
+     * Creates a cache of hash values by the hash functions.
+     *
+     * @param hashFunctions hash functions
+     * @param maxBytes the maximum memory usage
+     */
+    public TokenHashCache(final HashFunction[] hashFunctions, final long maxBytes) {
+        this(hashFunctions, 0, hashFunctions.length, maxBytes);
+    }
+
+    private TokenHashCache(final HashFunction[] hashFunctions, final int seed, final int num, final long maxBytes) {
+        if (num <= 0) {
+            throw new IllegalArgumentException("num is above 0.");
+        }
+        final long entryBytes = ENTRY_OVERHEAD + MAX_TERM_LENGTH * 2L + num * 8L;
+        final long slots = Math.min(maxBytes / entryBytes, 1 << 30);
+        if (slots <= 0) {
+            throw new IllegalArgumentException("maxBytes is " + entryBytes + " or more.");
+        }
+        this.hashFunctions = hashFunctions;
+        this.seed = seed;
+        this.num = num;
+        table = new Entry[Integer.highestOneBit((int) slots)];
+        mask = table.length - 1;
+    }
+
+    /**
+     * Returns hash values of a term. The returned array must not be modified.
+     *
+     * @param chars a char array
+     * @param length the length of the term from the start of chars
+     * @return num hash values
+     */
+    public long[] get(final char[] chars, final int length) {
+        if (length > MAX_TERM_LENGTH) {
+            missCount.increment();
+            return hash(chars, length);
+        }
+        final long key = termHash(chars, length);
+        final int index = (int) key & mask;
+        final Entry entry = table[index];
+        if (entry != null && entry.key == key && entry.matches(chars, length)) {
+            hitCount.increment();
+            return entry.values;
+        }
+        missCount.increment();
+        final long[] values = hash(chars, length);
+        table[index] = new Entry(key, chars, length, values);
+        return values;
+    }
+
+    private long[] hash(final char[] chars, final int length) {
+        final long[] values = new long[num];
+        if (hashFunctions == null) {
+            for (int i = 0; i < num; i++) {
+                values[i] = Murmur3.hash64(seed + i, chars, 0, length);
+            }
+        } else {
+            final String term = new String(chars, 0, length);
+            for (int i = 0; i < num; i++) {
+                values[i] = hashFunctions[i].hashUnencodedChars(term).asLong();
+            }
+        }
+        return values;
+    }
+
+    private static long termHash(final char[] chars, final int length) {
+        // FNV-1a, which is cheaper than the hash functions
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ chars[i]) * 0x100000001b3L;
+        }
+        return Murmur3.fmix64(hash);
+    }
+
+    /**
+     * Returns the number of hash values of a term.
+     *
+     * @return the number of hash functions
+     */
+    public int getNum() {
+        return num;
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return the maximum number of cached terms
+     */
+    public int getCapacity() {
+        return table.length;
+    }
+
+    /**
+     * Returns the number of lookups which found the term.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of lookups which computed hash values.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the ratio of hits to lookups.
+     *
+     * @return the hit rate (0 to 1.0), or 0 if nothing is looked up
+     */
+    public double getHitRate() {
+        final long hits = hitCount.sum();
+        final long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private static final class Entry {
+        private final long key;
+
+        private final char[] term;
+
+        private final long[] values;
+
+        Entry(final long key, final char[] chars, final int length, final long[] values) {
+            this.key = key;
+            term = Arrays.copyOf(chars, length);
+            this.values = values;
+        }
+
+        boolean matches(final char[] chars, final int length) {
+            return Arrays.equals(term, 0, term.length, chars, 0, length);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.codelibs.minhash.util.Murmur3;
+
+/**
+ * This class is a token filter to calculate weighted MinHash value by
+ * improved consistent weighted sampling (Ioffe, 2010).
+ * The weight of a term is its frequency in the token stream, and the probability that
+ * two signatures have the same value is the weighted Jaccard similarity.
+ * The cost depends on the number of distinct terms, not on the total weight.
+ *
+ * @author shinsuke
+ *
+ */
+public class WeightedMinHashTokenFilter extends AbstractMinHashTokenFilter {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final int seed;
+
+    private final long[] minHashValues;
+
+    private final double[] minLogValues;
+
+    private long[] terms = new long[64];
+
+    private int[] counts = new int[64];
+
+    private int size;
+
+    /**
+     * Creates a filter.
+     *
+     * @param input a token stream
+     * @param seed a seed for hash function
+     * @param num the number of samples (MinHash values)
+     * @param hashBit the number of hash bits
+     */
+    public WeightedMinHashTokenFilter(final TokenStream input, final int seed, final int num, final int hashBit) {
+        super(input, hashBit);
+        if (num <= 0) {
+            throw new IllegalArgumentException("num is above 0.");
+        }
+        this.seed = seed;
+        minHashValues = new long[num];
+        minLogValues = new double[num];
+    }
+
+    @Override
+    protected void addToken() {
+        final long term = Murmur3.hash64(seed, termAttr.buffer(), 0, termAttr.length());
+        if (size * 2 >= terms.length) {
+            resize();
+        }
+        final int mask = terms.length - 1;
+        int index = (int) Murmur3.fmix64(term) & mask;
+        while (counts[index] != 0) {
+            if (terms[index] == term) {
+                counts[index]++;
+                return;
+            }
+            index = index + 1 & mask;
+        }
+        terms[index] = term;
+        counts[index] = 1;
+        size++;
+    }
+
+    private void resize() {
+        final long[] oldTerms = terms;
+        final int[] oldCounts = counts;
+        terms = new long[oldTerms.length * 2];
+        counts = new int[oldCounts.length * 2];
+        final int mask = terms.length - 1;
+        for (int i = 0; i < oldTerms.length; i++) {
+            if (oldCounts[i] != 0) {
+                int index = (int) Murmur3.fmix64(oldTerms[i]) & mask;
+                while (counts[index] != 0) {
+                    index = index + 1 & mask;
+                }
+                terms[index] = oldTerms[i];
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    @Override
+    protected long[] getMinHashValues() {
+        Arrays.fill(minHashValues, Long.MAX_VALUE);
+        Arrays.fill(minLogValues, Double.POSITIVE_INFINITY);
+        for (int j = 0; j < terms.length; j++) {
+            if (counts[j] == 0) {
+                continue;
+            }
+            final long term = terms[j];
+            final double logWeight = Math.log(counts[j]);
+            for (int i = 0; i < minHashValues.length; i++) {
+                long state = Murmur3.fmix64(term + i * GOLDEN_GAMMA);
+                final double r = -Math.log(uniform(state += GOLDEN_GAMMA) * uniform(state += GOLDEN_GAMMA));
+                final double c = -Math.log(uniform(state += GOLDEN_GAMMA) * uniform(state += GOLDEN_GAMMA));
+                final double beta = uniform(state + GOLDEN_GAMMA);
+                final double t = Math.floor(logWeight / r + beta);
+                // ln(c / (exp(r * (t - beta)) * exp(r)))
+                final double logValue = Math.log(c) - r * (t - beta + 1);
+                if (logValue < minLogValues[i]) {
+                    minLogValues[i] = logValue;
+                    minHashValues[i] = Murmur3.fmix64(term ^ Murmur3.fmix64((long) t * GOLDEN_GAMMA + i));
+                }
+            }
+        }
+        return minHashValues;
+    }
+
+    /**
+     * Returns a uniform random number in (0, 1) for the state.
+     */
+    private static double uniform(final long state) {
+        long z = state;
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return ((z >>> 11) + 0.5) * 0x1.0p-53;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+}
@@ -0,0 +1,814 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.codelibs.minhash.MinHash;
+
+/**
+ * This class is a locality-sensitive hashing index persisted in a directory.
+ * Added signatures are buffered in memory and are written by {@link #flush()}
+ * as an immutable segment file with sorted band hash tables, so that the index
+ * is opened by memory-mapping the segments without rebuilding them.
+ * A deleted or replaced document is marked in a bitmap file of its segment, which is
+ * also memory-mapped, so that deletions of new documents cost nothing.
+ * When the number of segments reaches the merge factor, adjacent segments are merged
+ * in a background thread. The list of segments is replaced atomically, so files of
+ * an interrupted flush or merge are ignored.
+ * Flushed and merged documents are split into segments of {@link #setMaxSegmentBytes(long)}.
+ *
+ * @author shinsuke
+ *
+ */
+public class DiskLshIndex implements Closeable {
+
+    private static final String MANIFEST = "segments.meta";
+
+    private static final String SEGMENT_PREFIX = "segment_";
+
+    private static final String SEGMENT_SUFFIX = ".lsh";
+
+    private static final String DELETES_SUFFIX = ".del";
+
+    private static final int MAGIC = 0x4D484C49; // MHLI
+
+    private static final int VERSION = 1;
+
+    private final Path directory;
+
+    private final int bands;
+
+    private final int rows;
+
+    private final int signatureLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ExecutorService mergeExecutor;
+
+    // segments from the oldest to the newest
+    private List<LshSegment> segments = new ArrayList<>();
+
+    private final TreeMap<Long, byte[]> buffer = new TreeMap<>();
+
+    private final LshIndex bufferIndex;
+
+    // ids of live documents in segments which are deleted by the next flush
+    private final Set<Long> pendingDeletes = new HashSet<>();
+
+    private long nextGeneration;
+
+    private int maxBufferedDocs = 100000;
+
+    private int mergeFactor = 10;
+
+    private long maxSegmentBytes = Integer.MAX_VALUE;
+
+    private volatile IOException mergeException;
+
+    private boolean closed;
+
+    /**
+     * Opens an index. A new index is created if the directory does not have it.
+     *
+     * @param directory a directory for files
+     * @param bands the number of bands
+     * @param rows the number of bits in each band
+     * @param signatureLength the number of bytes of a signature
+     * @return an index
+     * @throws IOException if the index cannot be opened, or it has different parameters
+     */
+    public static DiskLshIndex open(final Path directory, final int bands, final int rows, final int signatureLength)
+            throws IOException {
+        if ((long) signatureLength * 8 < (long) bands * rows) {
+            throw new IllegalArgumentException("signatureLength is too small for " + bands + " bands x " + rows + " rows bits.");
+        }
+        Files.createDirectories(directory);
+        final Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            final DiskLshIndex index = new DiskLshIndex(directory, bands, rows, signatureLength);
+            index.writeManifest();
+            return index;
+        }
+        final DiskLshIndex index = open(directory);
+        if (index.bands != bands || index.rows != rows || index.signatureLength != signatureLength) {
+            index.close();
+            throw new IOException("The index has " + index.bands + " bands, " + index.rows + " rows and " + index.signatureLength
+                    + " bytes signatures: " + directory);
+        }
+        return index;
+    }
+
+    /**
+     * Opens an existing index.
+     *
+     * @param directory a directory of the index
+     * @return an index
+     * @throws IOException if the index cannot be opened
+     */
+    public static DiskLshIndex open(final Path directory) throws IOException {
+        final long[] generations;
+        final long[] deletesGenerations;
+        final DiskLshIndex index;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(directory.resolve(MANIFEST))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported format: " + directory);
+            }
+            index = new DiskLshIndex(directory, in.readInt(), in.readInt(), in.readInt());
+            index.nextGeneration = in.readLong();
+            generations = new long[in.readInt()];
+            deletesGenerations = new long[generations.length];
+            for (int i = 0; i < generations.length; i++) {
+                generations[i] = in.readLong();
+                deletesGenerations[i] = in.readLong();
+            }
+        }
+        try {
+            for (int i = 0; i < generations.length; i++) {
+                LshSegment segment = LshSegment.open(generations[i], index.segmentPath(generations[i]));
+                if (!segment.matches(index.bands, index.rows, index.signatureLength)) {
+                    throw new IOException("The segment has different parameters: " + segment.path);
+                }
+                if (deletesGenerations[i] >= 0) {
+                    segment = segment.withDeletes(deletesGenerations[i], index.deletesPath(generations[i], deletesGenerations[i]));
+                }
+                index.segments.add(segment);
+            }
+            index.deleteUnusedFiles();
+        } catch (final IOException | RuntimeException e) {
+            index.mergeExecutor.shutdownNow();
+            throw e;
+        }
+        return index;
+    }
+
+    private DiskLshIndex(final Path directory, final int bands, final int rows, final int signatureLength) {
+        this.directory = directory;
+        this.bands = bands;
+        this.rows = rows;
+        this.signatureLength = signatureLength;
+        bufferIndex = new LshIndex(bands, rows);
+        mergeExecutor = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "DiskLshIndex-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds a signature. If the id exists, the signature is replaced.
+     * The buffer is flushed when it has {@link #setMaxBufferedDocs(int)} signatures.
+     *
+     * @param id the id of the signature
+     * @param signature MinHash bytes of the signature length
+     * @throws IOException if the buffer cannot be flushed
+     */
+    public void add(final long id, final byte[] signature) throws IOException {
+        if (signature == null || signature.length != signatureLength) {
+            throw new IllegalArgumentException("The length of signature is " + signatureLength + ".");
+        }
+        final boolean full;
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            buffer.put(id, signature.clone());
+            bufferIndex.add(id, signature);
+            if (!pendingDeletes.contains(id) && findSegment(id) >= 0) {
+                // the old document is deleted by the next flush
+                pendingDeletes.add(id);
+            }
+            full = buffer.size() >= maxBufferedDocs;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Removes a signature.
+     *
+     * @param id the id of the signature
+     * @return true if the signature is removed
+     */
+    public boolean remove(final long id) {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            boolean exists = buffer.remove(id) != null;
+            bufferIndex.remove(id);
+            if (!pendingDeletes.contains(id) && findSegment(id) >= 0) {
+                pendingDeletes.add(id);
+                exists = true;
+            }
+            return exists;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the signature of the id.
+     *
+     * @param id the id of the signature
+     * @return MinHash bytes, or null if not found
+     */
+    public byte[] get(final long id) {
+        lock.readLock().lock();
+        try {
+            final byte[] signature = buffer.get(id);
+            if (signature != null) {
+                return signature.clone();
+            }
+            return pendingDeletes.contains(id) ? null : findInSegments(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private byte[] findInSegments(final long id) {
+        final int index = findSegment(id);
+        if (index < 0) {
+            return null;
+        }
+        final LshSegment segment = segments.get(index);
+        return segment.signature(segment.find(id));
+    }
+
+    /**
+     * Returns the position of the segment which has the live document of the id, or -1.
+     * A live document of an id is in at most one segment.
+     */
+    private int findSegment(final long id) {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            final LshSegment segment = segments.get(i);
+            final int ordinal = segment.find(id);
+            if (ordinal >= 0 && !segment.isDeleted(ordinal)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of signatures.
+     *
+     * @return the number of signatures
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            long size = buffer.size() - pendingDeletes.size();
+            for (final LshSegment segment : segments) {
+                size += segment.numLiveDocs();
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns ids of signatures which share at least one band with the query.
+     *
+     * @param signature MinHash bytes
+     * @return candidate ids in ascending order
+     */
+    public long[] query(final byte[] signature) {
+        final Map<Long, LshSegment> candidates = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            collectCandidates(signature, candidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return candidates.keySet().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Returns candidates whose similarity to the query is at least the threshold.
+     * Candidates are verified by {@link MinHash#compare(byte[], byte[])}.
+     *
+     * @param signature MinHash bytes
+     * @param threshold the minimum similarity
+     * @return hits in descending order of similarity
+     */
+    public List<Hit> query(final byte[] signature, final float threshold) {
+        final List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            final Map<Long, LshSegment> candidates = new TreeMap<>();
+            collectCandidates(signature, candidates);
+            for (final Map.Entry<Long, LshSegment> entry : candidates.entrySet()) {
+                final long id = entry.getKey();
+                final LshSegment segment = entry.getValue();
+                final byte[] target = segment == null ? buffer.get(id) : segment.signature(segment.find(id));
+                final float similarity = MinHash.compare(signature, target);
+                if (similarity >= threshold) {
+                    hits.add(new Hit(id, similarity));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(Comparator.comparing(Hit::similarity).reversed().thenComparing(Hit::id));
+        return hits;
+    }
+
+    /**
+     * Collects live candidates with their segments (null for the buffer).
+     */
+    private void collectCandidates(final byte[] signature, final Map<Long, LshSegment> candidates) {
+        if (signature == null || signature.length != signatureLength) {
+            throw new IllegalArgumentException("The length of signature is " + signatureLength + ".");
+        }
+        for (final long id : bufferIndex.query(signature)) {
+            candidates.put(id, null);
+        }
+        final long[] hashes = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            hashes[band] = LshIndex.bandHash(signature, band, rows);
+        }
+        for (final LshSegment segment : segments) {
+            for (int band = 0; band < bands; band++) {
+                segment.collect(band, hashes[band], ordinal -> {
+                    if (!segment.isDeleted(ordinal)) {
+                        final long id = segment.id(ordinal);
+                        if (!pendingDeletes.contains(id)) {
+                            candidates.putIfAbsent(id, segment);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Writes buffered signatures as a new segment, and deletions to the segments of the documents.
+     *
+     * @throws IOException if the segment cannot be written
+     */
+    public void flush() throws IOException {
+        final boolean merge;
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            if (buffer.isEmpty() && pendingDeletes.isEmpty()) {
+                return;
+            }
+            final long[] ids = new long[buffer.size()];
+            final byte[][] signatures = new byte[buffer.size()][];
+            int i = 0;
+            for (final Map.Entry<Long, byte[]> entry : buffer.entrySet()) {
+                ids[i] = entry.getKey();
+                signatures[i] = entry.getValue();
+                i++;
+            }
+            final Map<Integer, long[]> deletedBits = new HashMap<>();
+            for (final long id : pendingDeletes) {
+                final int index = findSegment(id);
+                if (index >= 0) {
+                    final LshSegment segment = segments.get(index);
+                    setBit(deletedBits.computeIfAbsent(index, k -> segment.deletedBits()), segment.find(id));
+                }
+            }
+            final List<LshSegment> newSegments = new ArrayList<>(segments);
+            final List<Path> oldFiles = writeDeletes(newSegments, deletedBits);
+            newSegments.addAll(writeSegments(ids, signatures));
+            commit(newSegments);
+            deleteFiles(oldFiles);
+            buffer.clear();
+            pendingDeletes.clear();
+            for (final long id : ids) {
+                bufferIndex.remove(id);
+            }
+            merge = segments.size() >= mergeFactor;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (merge) {
+            mergeExecutor.execute(() -> {
+                try {
+                    merge(false);
+                } catch (final IOException e) {
+                    mergeException = e;
+                }
+            });
+        }
+        throwMergeException();
+    }
+
+    /**
+     * Flushes the buffer and merges all segments, and removes deleted documents.
+     * The merged documents are in one segment unless they exceed {@link #setMaxSegmentBytes(long)}.
+     *
+     * @throws IOException if the segments cannot be merged
+     */
+    public void forceMerge() throws IOException {
+        flush();
+        try {
+            mergeExecutor.submit(() -> {
+                merge(true);
+                return null;
+            }).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted.", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof final IOException ioe) {
+                throw ioe;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Merges adjacent segments. This method runs in the merge thread.
+     */
+    private void merge(final boolean all) throws IOException {
+        final List<LshSegment> snapshot;
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            snapshot = new ArrayList<>(segments);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int from = 0;
+        int to = snapshot.size();
+        if (!all) {
+            // adjacent segments with the smallest size
+            long minSize = Long.MAX_VALUE;
+            from = -1;
+            for (int i = 0; i + mergeFactor <= snapshot.size(); i++) {
+                long total = 0;
+                for (int j = i; j < i + mergeFactor; j++) {
+                    total += snapshot.get(j).sizeInBytes();
+                }
+                if (total < minSize && total <= maxSegmentBytes) {
+                    minSize = total;
+                    from = i;
+                }
+            }
+            if (from < 0) {
+                return;
+            }
+            to = from + mergeFactor;
+        }
+        if (to == from || to - from == 1 && snapshot.get(from).numDeleted == 0) {
+            return;
+        }
+
+        // live documents in the order of ids
+        final List<LshSegment> range = snapshot.subList(from, to);
+        final int[] positions = new int[range.size()];
+        long remaining = 0;
+        for (final LshSegment segment : range) {
+            remaining += segment.numLiveDocs();
+        }
+        final int maxDocs = LshSegment.maxDocs(bands, signatureLength, maxSegmentBytes);
+        final List<LshSegment> merged = new ArrayList<>();
+        while (remaining > 0) {
+            final int size = (int) Math.min(remaining, maxDocs);
+            final long[] ids = new long[size];
+            final byte[][] signatures = new byte[size][];
+            for (int n = 0; n < size; n++) {
+                int next = -1;
+                for (int i = 0; i < range.size(); i++) {
+                    final LshSegment segment = range.get(i);
+                    while (positions[i] < segment.numDocs && segment.isDeleted(positions[i])) {
+                        positions[i]++;
+                    }
+                    if (positions[i] < segment.numDocs && (next < 0 || segment.id(positions[i]) < ids[n])) {
+                        next = i;
+                        ids[n] = segment.id(positions[i]);
+                    }
+                }
+                signatures[n] = range.get(next).signature(positions[next]++);
+            }
+            merged.add(writeSegment(ids, signatures));
+            remaining -= size;
+        }
+
+        final List<LshSegment> replaced;
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            // segments are only appended while merging, but documents in them may be deleted
+            final Map<Integer, long[]> deletedBits = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                final LshSegment before = snapshot.get(i);
+                final LshSegment current = segments.get(i);
+                if (current.deletesGeneration == before.deletesGeneration) {
+                    continue;
+                }
+                for (int ordinal = 0; ordinal < current.numDocs; ordinal++) {
+                    if (current.isDeleted(ordinal) && !before.isDeleted(ordinal)) {
+                        final long id = current.id(ordinal);
+                        for (int j = 0; j < merged.size(); j++) {
+                            final LshSegment segment = merged.get(j);
+                            final int mergedOrdinal = segment.find(id);
+                            if (mergedOrdinal >= 0) {
+                                setBit(deletedBits.computeIfAbsent(j, k -> segment.deletedBits()), mergedOrdinal);
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+            writeDeletes(merged, deletedBits);
+            replaced = new ArrayList<>(segments.subList(from, to));
+            final List<LshSegment> newSegments = new ArrayList<>(segments.subList(0, from));
+            newSegments.addAll(merged);
+            newSegments.addAll(segments.subList(to, segments.size()));
+            commit(newSegments);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        final List<Path> oldFiles = new ArrayList<>();
+        for (final LshSegment segment : replaced) {
+            oldFiles.add(segment.path);
+            if (segment.deletesPath != null) {
+                oldFiles.add(segment.deletesPath);
+            }
+        }
+        deleteFiles(oldFiles);
+    }
+
+    /**
+     * Writes documents into segments of {@link #setMaxSegmentBytes(long)}.
+     */
+    private List<LshSegment> writeSegments(final long[] ids, final byte[][] signatures) throws IOException {
+        final int maxDocs = LshSegment.maxDocs(bands, signatureLength, maxSegmentBytes);
+        final List<LshSegment> written = new ArrayList<>();
+        int from = 0;
+        while (from < ids.length) {
+            final int to = (int) Math.min((long) from + maxDocs, ids.length);
+            written.add(writeSegment(Arrays.copyOfRange(ids, from, to), Arrays.copyOfRange(signatures, from, to)));
+            from = to;
+        }
+        return written;
+    }
+
+    private LshSegment writeSegment(final long[] ids, final byte[][] signatures) throws IOException {
+        final long generation = newGeneration();
+        final Path path = segmentPath(generation);
+        LshSegment.write(path, bands, rows, signatureLength, ids, signatures);
+        return LshSegment.open(generation, path);
+    }
+
+    /**
+     * Writes new deletes files and replaces segments in the list.
+     *
+     * @param segments segments to be updated
+     * @param deletedBits bits of deleted ordinals for positions in segments
+     * @return deletes files which are replaced
+     */
+    private List<Path> writeDeletes(final List<LshSegment> segments, final Map<Integer, long[]> deletedBits) throws IOException {
+        final List<Path> oldFiles = new ArrayList<>();
+        for (final Map.Entry<Integer, long[]> entry : deletedBits.entrySet()) {
+            final LshSegment segment = segments.get(entry.getKey());
+            final long deletesGeneration = newGeneration();
+            final Path path = deletesPath(segment.generation, deletesGeneration);
+            LshSegment.writeDeletes(path, segment.numDocs, entry.getValue());
+            segments.set(entry.getKey(), segment.withDeletes(deletesGeneration, path));
+            if (segment.deletesPath != null) {
+                oldFiles.add(segment.deletesPath);
+            }
+        }
+        return oldFiles;
+    }
+
+    private static void setBit(final long[] bits, final int ordinal) {
+        bits[ordinal >>> 6] |= 1L << ordinal;
+    }
+
+    private long newGeneration() {
+        lock.writeLock().lock();
+        try {
+            return nextGeneration++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes files which are not in the manifest.
+     * A file which cannot be deleted, such as a mapped file on Windows, is deleted when the index is opened.
+     */
+    private static void deleteFiles(final List<Path> paths) {
+        for (final Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (final IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Replaces segments and writes the manifest. This method is called in the write lock.
+     */
+    private void commit(final List<LshSegment> newSegments) throws IOException {
+        final List<LshSegment> oldSegments = segments;
+        segments = newSegments;
+        try {
+            writeManifest();
+        } catch (final IOException e) {
+            segments = oldSegments;
+            throw e;
+        }
+    }
+
+    private void writeManifest() throws IOException {
+        final Path temp = directory.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(bands);
+            out.writeInt(rows);
+            out.writeInt(signatureLength);
+            out.writeLong(nextGeneration);
+            out.writeInt(segments.size());
+            for (final LshSegment segment : segments) {
+                out.writeLong(segment.generation);
+                out.writeLong(segment.deletesGeneration);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteUnusedFiles() throws IOException {
+        final Set<Path> used = new HashSet<>();
+        for (final LshSegment segment : segments) {
+            used.add(segment.path.getFileName());
+            if (segment.deletesPath != null) {
+                used.add(segment.deletesPath.getFileName());
+            }
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*{" + SEGMENT_SUFFIX + "," + DELETES_SUFFIX + "}")) {
+            for (final Path path : stream) {
+                if (!used.contains(path.getFileName())) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private Path segmentPath(final long generation) {
+        return directory.resolve(SEGMENT_PREFIX + generation + SEGMENT_SUFFIX);
+    }
+
+    private Path deletesPath(final long generation, final long deletesGeneration) {
+        return directory.resolve(SEGMENT_PREFIX + generation + "_" + deletesGeneration + DELETES_SUFFIX);
+    }
+
+    /**
+     * Returns the number of segments.
+     *
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the number of buffered signatures to flush automatically.
+     *
+     * @param maxBufferedDocs the number of signatures (default 100000)
+     */
+    public void setMaxBufferedDocs(final int maxBufferedDocs) {
+        if (maxBufferedDocs <= 0) {
+            throw new IllegalArgumentException("maxBufferedDocs is above 0.");
+        }
+        this.maxBufferedDocs = maxBufferedDocs;
+    }
+
+    /**
+     * Sets the number of adjacent segments merged in background.
+     *
+     * @param mergeFactor the number of segments (default 10)
+     */
+    public void setMergeFactor(final int mergeFactor) {
+        if (mergeFactor < 2) {
+            throw new IllegalArgumentException("mergeFactor is 2 or more.");
+        }
+        this.mergeFactor = mergeFactor;
+    }
+
+    /**
+     * Sets the maximum file size of a segment.
+     * Flushed or merged documents over the size are written to more than one segment.
+     *
+     * @param maxSegmentBytes the number of bytes (default and maximum {@code Integer.MAX_VALUE})
+     */
+    public void setMaxSegmentBytes(final long maxSegmentBytes) {
+        if (maxSegmentBytes <= 0 || maxSegmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxSegmentBytes is between 1 and " + Integer.MAX_VALUE + ".");
+        }
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("The index is closed.");
+        }
+    }
+
+    private void throwMergeException() throws IOException {
+        final IOException e = mergeException;
+        if (e != null) {
+            mergeException = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Flushes the buffer, waits for merges and closes the index.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            flush();
+        } finally {
+            mergeExecutor.shutdown();
+            try {
+                mergeExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lock.writeLock().lock();
+            try {
+                closed = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        throwMergeException();
+    }
+}
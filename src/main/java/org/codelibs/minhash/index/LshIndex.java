@@ -0,0 +1,284 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.codelibs.minhash.MinHash;
+import org.codelibs.minhash.util.FastBitSet;
+import org.codelibs.minhash.util.Murmur3;
+
+/**
+ * This class is an in-memory locality-sensitive hashing index for MinHash signatures.
+ * A signature is split into bands of rows bits, and signatures which share
+ * at least one band are returned as candidates.
+ * Signatures with a similarity s become candidates with the probability
+ * 1 - (1 - s^rows)^bands for 1-bit MinHash.
+ *
+ * @author shinsuke
+ *
+ */
+public class LshIndex {
+
+    private final int bands;
+
+    private final int rows;
+
+    private final List<Map<Long, Postings>> buckets;
+
+    private final Map<Long, byte[]> signatures = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an index.
+     *
+     * @param bands the number of bands
+     * @param rows the number of bits in each band
+     */
+    public LshIndex(final int bands, final int rows) {
+        if (bands <= 0) {
+            throw new IllegalArgumentException("bands is above 0.");
+        }
+        if (rows <= 0) {
+            throw new IllegalArgumentException("rows is above 0.");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        buckets = new ArrayList<>(bands);
+        for (int i = 0; i < bands; i++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds a signature. If the id exists, the signature is replaced.
+     *
+     * @param id the id of the signature
+     * @param signature MinHash bytes from {@link MinHash#calculate(org.apache.lucene.analysis.Analyzer, String)}
+     */
+    public void add(final long id, final byte[] signature) {
+        checkSignature(signature);
+        final byte[] value = signature.clone();
+        lock.writeLock().lock();
+        try {
+            final byte[] old = signatures.put(id, value);
+            if (old != null) {
+                removeFromBuckets(id, old);
+            }
+            for (int band = 0; band < bands; band++) {
+                buckets.get(band).computeIfAbsent(bandHash(value, band, rows), k -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a signature.
+     *
+     * @param id the id of the signature
+     * @return true if the signature is removed
+     */
+    public boolean remove(final long id) {
+        lock.writeLock().lock();
+        try {
+            final byte[] old = signatures.remove(id);
+            if (old == null) {
+                return false;
+            }
+            removeFromBuckets(id, old);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the signature of the id.
+     *
+     * @param id the id of the signature
+     * @return MinHash bytes, or null if not found
+     */
+    public byte[] get(final long id) {
+        lock.readLock().lock();
+        try {
+            final byte[] signature = signatures.get(id);
+            return signature != null ? signature.clone() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of signatures.
+     *
+     * @return the number of signatures
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns ids of signatures which share at least one band with the query.
+     *
+     * @param signature MinHash bytes
+     * @return candidate ids in ascending order
+     */
+    public long[] query(final byte[] signature) {
+        checkSignature(signature);
+        final Set<Long> candidates = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            collectCandidates(signature, candidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+        final long[] ids = new long[candidates.size()];
+        int i = 0;
+        for (final Long id : candidates) {
+            ids[i++] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Returns candidates whose similarity to the query is at least the threshold.
+     * Candidates are verified by {@link MinHash#compare(byte[], byte[])}.
+     *
+     * @param signature MinHash bytes
+     * @param threshold the minimum similarity
+     * @return hits in descending order of similarity
+     */
+    public List<Hit> query(final byte[] signature, final float threshold) {
+        checkSignature(signature);
+        final List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            final Set<Long> candidates = new HashSet<>();
+            collectCandidates(signature, candidates);
+            for (final Long id : candidates) {
+                final float similarity = MinHash.compare(signature, signatures.get(id));
+                if (similarity >= threshold) {
+                    hits.add(new Hit(id, similarity));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(Comparator.comparing(Hit::similarity).reversed().thenComparing(Hit::id));
+        return hits;
+    }
+
+    private void collectCandidates(final byte[] signature, final Set<Long> candidates) {
+        for (int band = 0; band < bands; band++) {
+            final Postings postings = buckets.get(band).get(bandHash(signature, band, rows));
+            if (postings != null) {
+                for (int i = 0; i < postings.size; i++) {
+                    candidates.add(postings.ids[i]);
+                }
+            }
+        }
+    }
+
+    private void removeFromBuckets(final long id, final byte[] signature) {
+        for (int band = 0; band < bands; band++) {
+            final Map<Long, Postings> bucket = buckets.get(band);
+            final Long key = bandHash(signature, band, rows);
+            final Postings postings = bucket.get(key);
+            if (postings != null && postings.remove(id) && postings.size == 0) {
+                bucket.remove(key);
+            }
+        }
+    }
+
+    private void checkSignature(final byte[] signature) {
+        if (signature == null) {
+            throw new IllegalArgumentException("signature is null.");
+        }
+        if ((long) signature.length * 8 < (long) bands * rows) {
+            throw new IllegalArgumentException(
+                    "signature has " + signature.length * 8 + " bits, but " + bands + " bands x " + rows + " rows bits are required.");
+        }
+    }
+
+    /**
+     * Computes a hash value of the bits in the band.
+     *
+     * @param signature MinHash bytes
+     * @param band the index of the band
+     * @param rows the number of bits in each band
+     * @return a hash value
+     */
+    static long bandHash(final byte[] signature, final int band, final int rows) {
+        final int start = band * rows;
+        long hash = Murmur3.fmix64(band + 1L);
+        for (int pos = 0; pos < rows; pos += 64) {
+            hash = Murmur3.fmix64(hash ^ readBits(signature, start + pos, Math.min(64, rows - pos)));
+        }
+        return hash;
+    }
+
+    /**
+     * Reads bits in the order of {@link FastBitSet}.
+     *
+     * @param data bytes
+     * @param pos the bit position
+     * @param nbits the number of bits (1 to 64)
+     * @return bits in the lower nbits
+     */
+    static long readBits(final byte[] data, final int pos, final int nbits) {
+        return FastBitSet.getBits(data, pos, nbits);
+    }
+
+    static class Postings {
+        long[] ids = new long[2];
+
+        int size;
+
+        void add(final long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(final long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
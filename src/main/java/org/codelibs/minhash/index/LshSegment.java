@@ -0,0 +1,362 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable segment file of {@link DiskLshIndex} with its deleted documents.
+ * The file is memory-mapped and has the following big-endian sections:
+ * <pre>
+ * header:     magic, version, bands, rows, signatureLength, numDocs (int x 6)
+ * ids:        long[numDocs] in ascending order
+ * signatures: byte[numDocs * signatureLength] in the order of ids
+ * bands:      for each band, long[numDocs] band hashes in ascending order
+ *             and int[numDocs] ordinals of the documents
+ * </pre>
+ * Deleted documents are stored in a separate file, which is also memory-mapped:
+ * <pre>
+ * header:     magic, version, numDocs, numDeleted (int x 4)
+ * bits:       long[(numDocs + 63) / 64] with a bit set for each deleted ordinal
+ * </pre>
+ * A new deletes file replaces the old one, so the segment file is never modified.
+ *
+ * @author shinsuke
+ *
+ */
+final class LshSegment {
+
+    private static final int MAGIC = 0x4D484C53; // MHLS
+
+    private static final int DELETES_MAGIC = 0x4D484C44; // MHLD
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 24;
+
+    private static final int DELETES_HEADER_SIZE = 16;
+
+    final long generation;
+
+    final Path path;
+
+    final int numDocs;
+
+    // generation of the deletes file, or -1 if no document is deleted
+    final long deletesGeneration;
+
+    // null if no document is deleted
+    final Path deletesPath;
+
+    final int numDeleted;
+
+    private final MappedByteBuffer buffer;
+
+    private final MappedByteBuffer deletes;
+
+    private final int bands;
+
+    private final int rows;
+
+    private final int signatureLength;
+
+    private final int signaturesOffset;
+
+    private final int bandsOffset;
+
+    private LshSegment(final long generation, final Path path, final MappedByteBuffer buffer) throws IOException {
+        this.generation = generation;
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported format: " + path);
+        }
+        bands = buffer.getInt(8);
+        rows = buffer.getInt(12);
+        signatureLength = buffer.getInt(16);
+        numDocs = buffer.getInt(20);
+        signaturesOffset = HEADER_SIZE + numDocs * Long.BYTES;
+        bandsOffset = signaturesOffset + numDocs * signatureLength;
+        if (buffer.capacity() != bandsOffset + bands * numDocs * (Long.BYTES + Integer.BYTES)) {
+            throw new IOException("Broken segment: " + path);
+        }
+        deletesGeneration = -1;
+        deletesPath = null;
+        deletes = null;
+        numDeleted = 0;
+    }
+
+    private LshSegment(final LshSegment segment, final long deletesGeneration, final Path deletesPath, final MappedByteBuffer deletes)
+            throws IOException {
+        generation = segment.generation;
+        path = segment.path;
+        buffer = segment.buffer;
+        bands = segment.bands;
+        rows = segment.rows;
+        signatureLength = segment.signatureLength;
+        numDocs = segment.numDocs;
+        signaturesOffset = segment.signaturesOffset;
+        bandsOffset = segment.bandsOffset;
+        if (deletes.capacity() < DELETES_HEADER_SIZE || deletes.getInt(0) != DELETES_MAGIC || deletes.getInt(4) != VERSION
+                || deletes.getInt(8) != numDocs || deletes.capacity() != DELETES_HEADER_SIZE + numWords(numDocs) * Long.BYTES) {
+            throw new IOException("Broken deletes: " + deletesPath);
+        }
+        this.deletesGeneration = deletesGeneration;
+        this.deletesPath = deletesPath;
+        this.deletes = deletes;
+        numDeleted = deletes.getInt(12);
+    }
+
+    /**
+     * Maps a segment file.
+     */
+    static LshSegment open(final long generation, final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new LshSegment(generation, path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Maps a deletes file and returns this segment with the deleted documents.
+     */
+    LshSegment withDeletes(final long deletesGeneration, final Path deletesPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(deletesPath, StandardOpenOption.READ)) {
+            return new LshSegment(this, deletesGeneration, deletesPath, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the file size of a segment.
+     */
+    static long sizeInBytes(final int bands, final int signatureLength, final long numDocs) {
+        return HEADER_SIZE + numDocs * (Long.BYTES + signatureLength + bands * (long) (Long.BYTES + Integer.BYTES));
+    }
+
+    /**
+     * Returns the maximum number of documents in a segment of the size.
+     */
+    static int maxDocs(final int bands, final int signatureLength, final long maxBytes) {
+        final long maxDocs = (maxBytes - HEADER_SIZE) / (sizeInBytes(bands, signatureLength, 1) - HEADER_SIZE);
+        return (int) Math.max(1, Math.min(maxDocs, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Writes a segment file.
+     *
+     * @param ids ids in ascending order
+     * @param signatures signatures in the order of ids
+     */
+    static void write(final Path path, final int bands, final int rows, final int signatureLength, final long[] ids,
+            final byte[][] signatures) throws IOException {
+        final int numDocs = ids.length;
+        if (sizeInBytes(bands, signatureLength, numDocs) > Integer.MAX_VALUE) {
+            throw new IOException("A segment must be smaller than 2GB: " + numDocs + " docs");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(bands);
+            out.writeInt(rows);
+            out.writeInt(signatureLength);
+            out.writeInt(numDocs);
+            for (final long id : ids) {
+                out.writeLong(id);
+            }
+            for (final byte[] signature : signatures) {
+                out.write(signature);
+            }
+            final long[] hashes = new long[numDocs];
+            final int[] ordinals = new int[numDocs];
+            for (int band = 0; band < bands; band++) {
+                for (int i = 0; i < numDocs; i++) {
+                    hashes[i] = LshIndex.bandHash(signatures[i], band, rows);
+                    ordinals[i] = i;
+                }
+                sort(hashes, ordinals);
+                for (final long hash : hashes) {
+                    out.writeLong(hash);
+                }
+                for (final int ordinal : ordinals) {
+                    out.writeInt(ordinal);
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Writes a deletes file.
+     *
+     * @param bits bits of deleted ordinals from {@link #deletedBits()}
+     */
+    static void writeDeletes(final Path path, final int numDocs, final long[] bits) throws IOException {
+        int numDeleted = 0;
+        for (final long word : bits) {
+            numDeleted += Long.bitCount(word);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(DELETES_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(numDocs);
+            out.writeInt(numDeleted);
+            for (final long word : bits) {
+                out.writeLong(word);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private static int numWords(final int numDocs) {
+        return (numDocs + 63) >>> 6;
+    }
+
+    long id(final int ordinal) {
+        return buffer.getLong(HEADER_SIZE + ordinal * Long.BYTES);
+    }
+
+    /**
+     * Returns the ordinal of the id, or -1.
+     */
+    int find(final long id) {
+        int low = 0;
+        int high = numDocs - 1;
+        while (low <= high) {
+            final int mid = low + high >>> 1;
+            final long value = id(mid);
+            if (value < id) {
+                low = mid + 1;
+            } else if (value > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    byte[] signature(final int ordinal) {
+        final byte[] signature = new byte[signatureLength];
+        buffer.get(signaturesOffset + ordinal * signatureLength, signature);
+        return signature;
+    }
+
+    boolean isDeleted(final int ordinal) {
+        return deletes != null && (deletes.getLong(DELETES_HEADER_SIZE + (ordinal >>> 6) * Long.BYTES) & 1L << ordinal) != 0;
+    }
+
+    /**
+     * Returns a copy of bits of deleted ordinals.
+     */
+    long[] deletedBits() {
+        final long[] bits = new long[numWords(numDocs)];
+        if (deletes != null) {
+            deletes.slice(DELETES_HEADER_SIZE, bits.length * Long.BYTES).asLongBuffer().get(bits);
+        }
+        return bits;
+    }
+
+    int numLiveDocs() {
+        return numDocs - numDeleted;
+    }
+
+    /**
+     * Passes ordinals of documents whose band has the hash.
+     */
+    void collect(final int band, final long hash, final IntConsumer consumer) {
+        final int hashesOffset = bandsOffset + band * numDocs * (Long.BYTES + Integer.BYTES);
+        final int ordinalsOffset = hashesOffset + numDocs * Long.BYTES;
+        // the first position of the hash
+        int low = 0;
+        int high = numDocs;
+        while (low < high) {
+            final int mid = low + high >>> 1;
+            if (buffer.getLong(hashesOffset + mid * Long.BYTES) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < numDocs && buffer.getLong(hashesOffset + i * Long.BYTES) == hash; i++) {
+            consumer.accept(buffer.getInt(ordinalsOffset + i * Integer.BYTES));
+        }
+    }
+
+    long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    boolean matches(final int bands, final int rows, final int signatureLength) {
+        return this.bands == bands && this.rows == rows && this.signatureLength == signatureLength;
+    }
+
+    /**
+     * Sorts hashes with ordinals by heap sort.
+     */
+    static void sort(final long[] hashes, final int[] ordinals) {
+        final int n = hashes.length;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(hashes, ordinals, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(hashes, ordinals, 0, end);
+            siftDown(hashes, ordinals, 0, end);
+        }
+    }
+
+    private static void siftDown(final long[] hashes, final int[] ordinals, int i, final int n) {
+        while (true) {
+            int largest = i;
+            final int left = 2 * i + 1;
+            final int right = left + 1;
+            if (left < n && greater(hashes, ordinals, left, largest)) {
+                largest = left;
+            }
+            if (right < n && greater(hashes, ordinals, right, largest)) {
+                largest = right;
+            }
+            if (largest == i) {
+                return;
+            }
+            swap(hashes, ordinals, i, largest);
+            i = largest;
+        }
+    }
+
+    private static boolean greater(final long[] hashes, final int[] ordinals, final int a, final int b) {
+        return hashes[a] > hashes[b] || hashes[a] == hashes[b] && ordinals[a] > ordinals[b];
+    }
+
+    private static void swap(final long[] hashes, final int[] ordinals, final int a, final int b) {
+        final long hash = hashes[a];
+        hashes[a] = hashes[b];
+        hashes[b] = hash;
+        final int ordinal = ordinals[a];
+        ordinals[a] = ordinals[b];
+        ordinals[b] = ordinal;
+    }
+}
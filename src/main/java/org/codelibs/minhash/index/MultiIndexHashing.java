@@ -0,0 +1,362 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+import org.codelibs.minhash.MinHash;
+import org.codelibs.minhash.index.LshIndex.Postings;
+import org.codelibs.minhash.util.FastBitSet;
+import org.codelibs.minhash.util.HammingDistance;
+
+/**
+ * This class is an in-memory index to find exact neighbors of MinHash signatures in Hamming space
+ * by multi-index hashing (Norouzi et al., 2012).
+ * A signature is split into m disjoint substrings and each substring is indexed in its own table.
+ * If two signatures differ in at most r bits, at least one substring differs in at most r / m bits,
+ * so the neighbors are found by looking up substrings within a small radius instead of a linear scan.
+ * Unlike {@link LshIndex}, the results are exact.
+ *
+ * @author shinsuke
+ *
+ */
+public class MultiIndexHashing {
+
+    private static final int MAX_SUBSTRING_BITS = 63;
+
+    private final int signatureLength;
+
+    private final int numOfBits;
+
+    private final int[] offsets;
+
+    private final int[] lengths;
+
+    private final List<Map<Long, Postings>> tables;
+
+    private final Map<Long, byte[]> signatures = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an index.
+     * A good number of substrings is about numOfBits / log2(the number of signatures).
+     *
+     * @param signatureLength the number of bytes of a signature
+     * @param substrings the number of substrings
+     */
+    public MultiIndexHashing(final int signatureLength, final int substrings) {
+        if (signatureLength <= 0) {
+            throw new IllegalArgumentException("signatureLength is above 0.");
+        }
+        if (substrings <= 0) {
+            throw new IllegalArgumentException("substrings is above 0.");
+        }
+        numOfBits = signatureLength * 8;
+        if (substrings > numOfBits) {
+            throw new IllegalArgumentException("substrings is " + numOfBits + " or less.");
+        }
+        if ((numOfBits + substrings - 1) / substrings > MAX_SUBSTRING_BITS) {
+            throw new IllegalArgumentException("substrings is " + (numOfBits + MAX_SUBSTRING_BITS - 1) / MAX_SUBSTRING_BITS + " or more.");
+        }
+        this.signatureLength = signatureLength;
+        offsets = new int[substrings];
+        lengths = new int[substrings];
+        tables = new ArrayList<>(substrings);
+        int offset = 0;
+        for (int i = 0; i < substrings; i++) {
+            offsets[i] = offset;
+            lengths[i] = numOfBits / substrings + (i < numOfBits % substrings ? 1 : 0);
+            offset += lengths[i];
+            tables.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds a signature. If the id exists, the signature is replaced.
+     *
+     * @param id the id of the signature
+     * @param signature MinHash bytes of the signature length
+     */
+    public void add(final long id, final byte[] signature) {
+        checkSignature(signature);
+        final byte[] value = signature.clone();
+        lock.writeLock().lock();
+        try {
+            final byte[] old = signatures.put(id, value);
+            if (old != null) {
+                removeFromTables(id, old);
+            }
+            for (int i = 0; i < tables.size(); i++) {
+                tables.get(i).computeIfAbsent(substring(value, i), k -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a signature.
+     *
+     * @param id the id of the signature
+     * @return true if the signature is removed
+     */
+    public boolean remove(final long id) {
+        lock.writeLock().lock();
+        try {
+            final byte[] old = signatures.remove(id);
+            if (old == null) {
+                return false;
+            }
+            removeFromTables(id, old);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the signature of the id.
+     *
+     * @param id the id of the signature
+     * @return MinHash bytes, or null if not found
+     */
+    public byte[] get(final long id) {
+        lock.readLock().lock();
+        try {
+            final byte[] signature = signatures.get(id);
+            return signature != null ? signature.clone() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of signatures.
+     *
+     * @return the number of signatures
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns all signatures whose similarity to the query is at least the threshold.
+     * The similarity is the same as {@link MinHash#compare(byte[], byte[])}.
+     *
+     * @param signature MinHash bytes
+     * @param threshold the minimum similarity
+     * @return hits in descending order of similarity
+     */
+    public List<Hit> query(final byte[] signature, final float threshold) {
+        int maxDistance = -1;
+        while (maxDistance < numOfBits && similarity(maxDistance + 1) >= threshold) {
+            maxDistance++;
+        }
+        if (maxDistance < 0) {
+            checkSignature(signature);
+            return new ArrayList<>();
+        }
+        return rangeQuery(signature, maxDistance);
+    }
+
+    /**
+     * Returns all signatures within the Hamming distance from the query.
+     *
+     * @param signature MinHash bytes
+     * @param maxDistance the maximum number of different bits
+     * @return hits in descending order of similarity
+     */
+    public List<Hit> rangeQuery(final byte[] signature, final int maxDistance) {
+        checkSignature(signature);
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance is 0 or more.");
+        }
+        final int m = tables.size();
+        final List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            final Set<Long> visited = new HashSet<>();
+            // if the distance is at most maxDistance, the first (maxDistance % m + 1) substrings
+            // are within maxDistance / m or the others are within maxDistance / m - 1.
+            for (int i = 0; i < m; i++) {
+                final int radius = Math.min(maxDistance / m - (i <= maxDistance % m ? 0 : 1), lengths[i]);
+                for (int r = 0; r <= radius; r++) {
+                    lookup(signature, i, r, id -> {
+                        if (visited.add(id)) {
+                            final int distance = HammingDistance.distance(signature, signatures.get(id), maxDistance);
+                            if (distance <= maxDistance) {
+                                hits.add(new Hit(id, similarity(distance)));
+                            }
+                        }
+                    });
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(Comparator.comparing(Hit::similarity).reversed().thenComparing(Hit::id));
+        return hits;
+    }
+
+    /**
+     * Returns the k most similar signatures to the query.
+     * Signatures with the same similarity are ordered by id.
+     *
+     * @param signature MinHash bytes
+     * @param k the number of signatures
+     * @return hits in descending order of similarity
+     */
+    public List<Hit> topK(final byte[] signature, final int k) {
+        checkSignature(signature);
+        if (k <= 0) {
+            throw new IllegalArgumentException("k is above 0.");
+        }
+        final int m = tables.size();
+        // the worst hit is at the head
+        final PriorityQueue<long[]> queue = new PriorityQueue<>(
+                Comparator.<long[]> comparingLong(e -> e[0]).thenComparingLong(e -> e[1]).reversed());
+        lock.readLock().lock();
+        try {
+            final Set<Long> visited = new HashSet<>();
+            final int total = Math.min(k, signatures.size());
+            search: for (int r = 0; total > 0; r++) {
+                for (int i = 0; i < m; i++) {
+                    if (r <= lengths[i]) {
+                        lookup(signature, i, r, id -> {
+                            if (visited.add(id)) {
+                                final long distance = HammingDistance.distance(signature, signatures.get(id));
+                                if (queue.size() < k) {
+                                    queue.add(new long[] { distance, id });
+                                } else {
+                                    final long[] worst = queue.peek();
+                                    if (distance < worst[0] || distance == worst[0] && id < worst[1]) {
+                                        queue.poll();
+                                        queue.add(new long[] { distance, id });
+                                    }
+                                }
+                            }
+                        });
+                    }
+                    // all signatures within m * r + i bits have been visited
+                    if (queue.size() == total && (queue.peek()[0] <= (long) m * r + i || visited.size() == signatures.size())) {
+                        break search;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        final List<Hit> hits = new ArrayList<>(queue.size());
+        for (final long[] e : queue) {
+            hits.add(new Hit(e[1], similarity((int) e[0])));
+        }
+        hits.sort(Comparator.comparing(Hit::similarity).reversed().thenComparing(Hit::id));
+        return hits;
+    }
+
+    /**
+     * Calls the consumer for ids whose i-th substring differs from the query in exactly r bits.
+     */
+    private void lookup(final byte[] signature, final int i, final int r, final LongConsumer consumer) {
+        final Map<Long, Postings> table = tables.get(i);
+        final long key = substring(signature, i);
+        final int length = lengths[i];
+        if (binomial(length, r) > table.size()) {
+            // fewer buckets than the neighbors
+            for (final Map.Entry<Long, Postings> entry : table.entrySet()) {
+                if (Long.bitCount(entry.getKey() ^ key) == r) {
+                    accept(entry.getValue(), consumer);
+                }
+            }
+            return;
+        }
+        if (r == 0) {
+            accept(table.get(key), consumer);
+            return;
+        }
+        // enumerates masks with r bits in ascending order (Gosper's hack)
+        long mask = (1L << r) - 1;
+        while (mask >>> length == 0) {
+            accept(table.get(key ^ mask), consumer);
+            final long c = mask & -mask;
+            final long next = mask + c;
+            mask = ((next ^ mask) >>> 2) / c | next;
+        }
+    }
+
+    private static void accept(final Postings postings, final LongConsumer consumer) {
+        if (postings != null) {
+            for (int j = 0; j < postings.size; j++) {
+                consumer.accept(postings.ids[j]);
+            }
+        }
+    }
+
+    private static long binomial(final int n, final int r) {
+        long value = 1;
+        for (int i = 0; i < r; i++) {
+            value = value * (n - i) / (i + 1);
+            if (value > Integer.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return value;
+    }
+
+    private long substring(final byte[] signature, final int i) {
+        return FastBitSet.getBits(signature, offsets[i], lengths[i]);
+    }
+
+    private float similarity(final int distance) {
+        return (float) (numOfBits - distance) / (float) numOfBits;
+    }
+
+    private void removeFromTables(final long id, final byte[] signature) {
+        for (int i = 0; i < tables.size(); i++) {
+            final Map<Long, Postings> table = tables.get(i);
+            final Long key = substring(signature, i);
+            final Postings postings = table.get(key);
+            if (postings != null && postings.remove(id) && postings.size == 0) {
+                table.remove(key);
+            }
+        }
+    }
+
+    private void checkSignature(final byte[] signature) {
+        if (signature == null) {
+            throw new IllegalArgumentException("signature is null.");
+        }
+        if (signature.length != signatureLength) {
+            throw new IllegalArgumentException("The length of signature is " + signatureLength + ".");
+        }
+    }
+}
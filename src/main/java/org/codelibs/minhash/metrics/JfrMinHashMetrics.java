@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.metrics;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * This class records the signature pipeline as JDK Flight Recorder events.
+ * Signatures and calculations are recorded as events, and the number of comparisons
+ * is recorded every second, because an event for each comparison is too expensive.
+ * Events are enabled in a recording, such as {@code -XX:StartFlightRecording}.
+ *
+ * @author shinsuke
+ *
+ */
+public class JfrMinHashMetrics implements MinHashMetrics, Closeable {
+
+    private final LongAdder compareCount = new LongAdder();
+
+    private final Runnable compareHook;
+
+    /**
+     * Creates a listener and registers the periodic event of comparisons.
+     */
+    public JfrMinHashMetrics() {
+        compareHook = () -> {
+            final CompareEvent event = new CompareEvent();
+            event.count = compareCount.sumThenReset();
+            event.commit();
+        };
+        FlightRecorder.addPeriodicEvent(CompareEvent.class, compareHook);
+    }
+
+    @Override
+    public void signatureCreated(final int numOfTokens, final long hashNanos, final int numOfBytes, final long packNanos) {
+        final SignatureEvent event = new SignatureEvent();
+        if (event.isEnabled()) {
+            event.numOfTokens = numOfTokens;
+            event.hashTime = hashNanos;
+            event.numOfBytes = numOfBytes;
+            event.packTime = packNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void calculated(final int numOfBytes, final long nanos) {
+        final CalculateEvent event = new CalculateEvent();
+        if (event.isEnabled()) {
+            event.numOfBytes = numOfBytes;
+            event.time = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void compared(final int numOfBytes) {
+        compareCount.increment();
+    }
+
+    /**
+     * Unregisters the periodic event.
+     */
+    @Override
+    public void close() {
+        FlightRecorder.removePeriodicEvent(compareHook);
+    }
+
+    @Name("org.codelibs.minhash.Signature")
+    @Label("MinHash Signature")
+    @Description("A signature created by a MinHash token filter")
+    @Category("MinHash")
+    @StackTrace(false)
+    static class SignatureEvent extends Event {
+        @Label("Tokens")
+        int numOfTokens;
+
+        @Label("Hash Time")
+        @Timespan
+        long hashTime;
+
+        @Label("Bytes")
+        @DataAmount
+        int numOfBytes;
+
+        @Label("Pack Time")
+        @Timespan
+        long packTime;
+    }
+
+    @Name("org.codelibs.minhash.Calculate")
+    @Label("MinHash Calculate")
+    @Description("A signature returned by MinHash.calculate")
+    @Category("MinHash")
+    @StackTrace(false)
+    static class CalculateEvent extends Event {
+        @Label("Bytes")
+        @DataAmount
+        int numOfBytes;
+
+        @Label("Time")
+        @Timespan
+        long time;
+    }
+
+    @Name("org.codelibs.minhash.Compare")
+    @Label("MinHash Compare")
+    @Description("The number of comparisons since the last event")
+    @Category("MinHash")
+    @Period("1 s")
+    @StackTrace(false)
+    static class CompareEvent extends Event {
+        @Label("Count")
+        long count;
+    }
+}
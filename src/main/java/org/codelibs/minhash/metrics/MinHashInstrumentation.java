@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.metrics;
+
+/**
+ * Holder of the {@link MinHashMetrics} listener.
+ * Instrumentation is off by default, and then the pipeline only reads a null field.
+ *
+ * @author shinsuke
+ *
+ */
+public final class MinHashInstrumentation {
+
+    private static volatile MinHashMetrics metrics;
+
+    private MinHashInstrumentation() {
+    }
+
+    /**
+     * Sets the listener for all threads.
+     *
+     * @param metrics a listener, or null to turn off instrumentation
+     */
+    public static void setMetrics(final MinHashMetrics metrics) {
+        MinHashInstrumentation.metrics = metrics;
+    }
+
+    /**
+     * Returns the listener.
+     *
+     * @return the listener, or null if instrumentation is off
+     */
+    public static MinHashMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.metrics;
+
+/**
+ * Listener of the signature pipeline, which is set by {@link MinHashInstrumentation#setMetrics(MinHashMetrics)}.
+ * Methods are called in the thread which calculates or compares signatures, so they should return quickly.
+ * Implementations can forward the values to a metrics library, or use {@link JfrMinHashMetrics}.
+ *
+ * @author shinsuke
+ *
+ */
+public interface MinHashMetrics {
+
+    /**
+     * Called when a MinHash token filter creates a signature of a document.
+     *
+     * @param numOfTokens the number of tokens of the document
+     * @param hashNanos the time to consume the tokens, which includes tokenizing and hashing
+     * @param numOfBytes the number of bytes of the signature
+     * @param packNanos the time to pack minimum hash values into the signature
+     */
+    default void signatureCreated(final int numOfTokens, final long hashNanos, final int numOfBytes, final long packNanos) {
+    }
+
+    /**
+     * Called when {@code MinHash.calculate} returns a signature.
+     *
+     * @param numOfBytes the number of bytes of the signature, or 0 if no signature is created
+     * @param nanos the time of the calculation
+     */
+    default void calculated(final int numOfBytes, final long nanos) {
+    }
+
+    /**
+     * Called when {@code MinHash} compares signatures.
+     *
+     * @param numOfBytes the number of bytes of a signature
+     */
+    default void compared(final int numOfBytes) {
+    }
+}
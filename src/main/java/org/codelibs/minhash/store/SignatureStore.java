@@ -0,0 +1,302 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append-only store of fixed-width signatures in a memory-mapped file.
+ * Signatures are kept off the heap, so billions of them do not need byte arrays.
+ * A signature is identified by its position (0, 1, 2, ...), and
+ * {@link #compare(long, long)} counts bits directly on the mapped memory.
+ * The file is mapped in segments which contain whole signatures,
+ * and the last segment is remapped with a doubled size when it is full.
+ * Reads can be done concurrently with appends.
+ *
+ * @author shinsuke
+ *
+ */
+public class SignatureStore implements Closeable {
+
+    private static final int MAGIC = 0x4D485353; // MHSS
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+
+    private static final int MIN_MAPPING_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+
+    private final int signatureLength;
+
+    private final int signaturesPerSegment;
+
+    private final MappedByteBuffer header;
+
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    private volatile long size;
+
+    private volatile boolean closed;
+
+    /**
+     * Opens a store. A new file is created if it does not exist.
+     *
+     * @param path a file path
+     * @param signatureLength the number of bytes of a signature
+     * @return a store
+     * @throws IOException if the file cannot be opened, or it has a different signature length
+     */
+    public static SignatureStore open(final Path path, final int signatureLength) throws IOException {
+        return new SignatureStore(path, signatureLength, DEFAULT_SEGMENT_SIZE);
+    }
+
+    SignatureStore(final Path path, final int signatureLength, final long segmentSize) throws IOException {
+        if (signatureLength <= 0) {
+            throw new IllegalArgumentException("signatureLength is above 0.");
+        }
+        if (segmentSize < signatureLength) {
+            throw new IllegalArgumentException("segmentSize is signatureLength or more.");
+        }
+        this.signatureLength = signatureLength;
+        signaturesPerSegment = (int) Math.min(segmentSize / signatureLength, Integer.MAX_VALUE / signatureLength);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final boolean created = channel.size() == 0;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putInt(8, signatureLength);
+                header.putLong(16, 0L);
+            } else {
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("Unsupported format: " + path);
+                }
+                if (header.getInt(8) != signatureLength) {
+                    throw new IOException("The signature length is " + header.getInt(8) + ": " + path);
+                }
+                size = header.getLong(16);
+                if (size > 0) {
+                    ensureMapped(size - 1);
+                }
+            }
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a signature.
+     *
+     * @param signature a signature of {@link #getSignatureLength()} bytes
+     * @return the id of the signature
+     * @throws IOException if the file cannot be extended
+     */
+    public synchronized long append(final byte[] signature) throws IOException {
+        ensureOpen();
+        if (signature.length != signatureLength) {
+            throw new IllegalArgumentException("The length of signature is " + signatureLength + ": " + signature.length);
+        }
+        final long id = size;
+        final MappedByteBuffer segment = ensureMapped(id);
+        segment.put(offset(id), signature);
+        size = id + 1;
+        header.putLong(16, size);
+        return id;
+    }
+
+    /**
+     * Returns a copy of a signature.
+     *
+     * @param id the id of a signature
+     * @return a signature
+     */
+    public byte[] get(final long id) {
+        final byte[] signature = new byte[signatureLength];
+        segment(id).get(offset(id), signature);
+        return signature;
+    }
+
+    /**
+     * Returns a read-only view of a signature without copying.
+     *
+     * @param id the id of a signature
+     * @return a buffer which has the signature from position 0 to limit
+     */
+    public ByteBuffer slice(final long id) {
+        return segment(id).slice(offset(id), signatureLength).asReadOnlyBuffer();
+    }
+
+    /**
+     * Compares two signatures in the store.
+     *
+     * @param idA the id of a signature
+     * @param idB the id of a signature
+     * @return the same value as {@code MinHash.compare(get(idA), get(idB))}
+     */
+    public float compare(final long idA, final long idB) {
+        final ByteBuffer segmentA = segment(idA);
+        final ByteBuffer segmentB = segment(idB);
+        final int offsetA = offset(idA);
+        final int offsetB = offset(idB);
+        int distance = 0;
+        int i = 0;
+        for (; i + Long.BYTES <= signatureLength; i += Long.BYTES) {
+            distance += Long.bitCount(segmentA.getLong(offsetA + i) ^ segmentB.getLong(offsetB + i));
+        }
+        for (; i < signatureLength; i++) {
+            distance += Integer.bitCount((segmentA.get(offsetA + i) ^ segmentB.get(offsetB + i)) & 0xff);
+        }
+        final int numOfBits = signatureLength * 8;
+        return (float) (numOfBits - distance) / (float) numOfBits;
+    }
+
+    /**
+     * Compares a signature in the store with a query.
+     *
+     * @param id the id of a signature
+     * @param query a signature of {@link #getSignatureLength()} bytes
+     * @return the same value as {@code MinHash.compare(get(id), query)}
+     */
+    public float compare(final long id, final byte[] query) {
+        if (query.length != signatureLength) {
+            throw new IllegalArgumentException("The length of query is " + signatureLength + ": " + query.length);
+        }
+        final ByteBuffer segment = segment(id);
+        final ByteBuffer target = ByteBuffer.wrap(query).order(ByteOrder.LITTLE_ENDIAN);
+        final int offset = offset(id);
+        int distance = 0;
+        int i = 0;
+        for (; i + Long.BYTES <= signatureLength; i += Long.BYTES) {
+            distance += Long.bitCount(segment.getLong(offset + i) ^ target.getLong(i));
+        }
+        for (; i < signatureLength; i++) {
+            distance += Integer.bitCount((segment.get(offset + i) ^ query[i]) & 0xff);
+        }
+        final int numOfBits = signatureLength * 8;
+        return (float) (numOfBits - distance) / (float) numOfBits;
+    }
+
+    /**
+     * Returns the number of signatures.
+     *
+     * @return the number of signatures
+     */
+    public long size() {
+        return size;
+    }
+
+    public int getSignatureLength() {
+        return signatureLength;
+    }
+
+    /**
+     * Writes appended signatures to the storage device.
+     */
+    public synchronized void flush() {
+        for (final MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flush();
+        segments = new MappedByteBuffer[0];
+        channel.close();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The store is closed.");
+        }
+    }
+
+    private int segmentIndex(final long id) {
+        return (int) (id / signaturesPerSegment);
+    }
+
+    private int offset(final long id) {
+        return (int) (id % signaturesPerSegment) * signatureLength;
+    }
+
+    private ByteBuffer segment(final long id) {
+        if (closed) {
+            throw new IllegalStateException("The store is closed.");
+        }
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("id: " + id + ", size: " + size);
+        }
+        return segments[segmentIndex(id)];
+    }
+
+    private MappedByteBuffer ensureMapped(final long id) throws IOException {
+        final int index = segmentIndex(id);
+        final int required = offset(id) + signatureLength;
+        MappedByteBuffer[] current = segments;
+        if (index < current.length && current[index].capacity() >= required) {
+            return current[index];
+        }
+        current = Arrays.copyOf(current, Math.max(current.length, index + 1));
+        final int segmentBytes = signaturesPerSegment * signatureLength;
+        // preceding segments are always full
+        for (int i = Math.max(segments.length - 1, 0); i < index; i++) {
+            if (current[i] == null || current[i].capacity() < segmentBytes) {
+                current[i] = map(i, segmentBytes);
+            }
+        }
+        final int capacity = current[index] == null ? 0 : current[index].capacity();
+        current[index] = map(index, mappingSize(index, capacity, required, segmentBytes));
+        segments = current;
+        return current[index];
+    }
+
+    private int mappingSize(final int index, final int capacity, final int required, final int segmentBytes) throws IOException {
+        // reuse the area which already exists in the file
+        final long existing = Math.min(channel.size() - HEADER_SIZE - (long) index * segmentBytes, segmentBytes);
+        if (existing >= required) {
+            return (int) (existing / signatureLength * signatureLength);
+        }
+        final long size = Math.max(Math.max(capacity * 2L, required), MIN_MAPPING_SIZE);
+        return (int) Math.min((size + signatureLength - 1) / signatureLength * signatureLength, segmentBytes);
+    }
+
+    private MappedByteBuffer map(final int index, final int bytes) throws IOException {
+        final long position = HEADER_SIZE + (long) index * signaturesPerSegment * signatureLength;
+        final MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, position, bytes);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        return segment;
+    }
+}
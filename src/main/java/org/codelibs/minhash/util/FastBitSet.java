@@ -15,15 +15,23 @@
  */
 package org.codelibs.minhash.util;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
 /**
  * Fast bit set implementation for efficient bit manipulation.
  * This class provides a lightweight alternative to {@link java.util.BitSet}
  * with minimal overhead for fixed-size bit arrays.
+ * Bits are stored in a byte array in little-endian order, and bulk operations
+ * read and write them 64 bits at a time.
  *
  * @author shinsuke
  *
  */
 public class FastBitSet {
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
     final byte[] data;
 
     final int nbit;
@@ -53,6 +61,160 @@ public class FastBitSet {
         }
     }
 
+    /**
+     * Sets the lower nbits of the value from the bit position.
+     * Bits beyond the byte array are ignored, as {@link #set(int, boolean)}.
+     *
+     * @param pos the bit position
+     * @param value bits to set
+     * @param nbits the number of bits (0 to 64)
+     */
+    public void setBits(final int pos, final long value, final int nbits) {
+        if (nbits < 0 || nbits > 64) {
+            throw new IllegalArgumentException("nbits is between 0 and 64.");
+        }
+        if (nbits == 0) {
+            return;
+        }
+        final long mask = nbits == 64 ? -1L : (1L << nbits) - 1;
+        final long bits = value & mask;
+        int bytePos = pos >>> 3;
+        final int offset = pos & 7;
+        final boolean spill = offset + nbits > 64;
+        if (bytePos + Long.BYTES < data.length || bytePos + Long.BYTES == data.length && !spill) {
+            final long word = (long) LONG_VIEW.get(data, bytePos);
+            LONG_VIEW.set(data, bytePos, word & ~(mask << offset) | bits << offset);
+            if (spill) {
+                final int restMask = (1 << offset + nbits - 64) - 1;
+                final int rest = (int) (bits >>> 64 - offset);
+                data[bytePos + Long.BYTES] = (byte) (data[bytePos + Long.BYTES] & ~restMask | rest & restMask);
+            }
+            return;
+        }
+
+        long remaining = bits;
+        int count = nbits;
+        int shift = offset;
+        while (count > 0 && bytePos < data.length) {
+            final int width = Math.min(8 - shift, count);
+            final int byteMask = (1 << width) - 1 << shift;
+            data[bytePos] = (byte) (data[bytePos] & ~byteMask | (int) remaining << shift & byteMask);
+            remaining >>>= width;
+            count -= width;
+            shift = 0;
+            bytePos++;
+        }
+    }
+
+    /**
+     * Returns nbits from the bit position.
+     *
+     * @param pos the bit position
+     * @param nbits the number of bits (0 to 64)
+     * @return bits in the lower nbits
+     */
+    public long getBits(final int pos, final int nbits) {
+        return getBits(data, pos, nbits);
+    }
+
+    /**
+     * Returns nbits from the bit position of the byte array in the order of this class.
+     *
+     * @param data bytes
+     * @param pos the bit position
+     * @param nbits the number of bits (0 to 64)
+     * @return bits in the lower nbits
+     */
+    public static long getBits(final byte[] data, final int pos, final int nbits) {
+        if (nbits < 0 || nbits > 64) {
+            throw new IllegalArgumentException("nbits is between 0 and 64.");
+        }
+        if (nbits == 0) {
+            return 0L;
+        }
+        final int bytePos = pos >>> 3;
+        final int offset = pos & 7;
+        long value;
+        if (bytePos + Long.BYTES <= data.length) {
+            value = (long) LONG_VIEW.get(data, bytePos) >>> offset;
+            if (offset + nbits > 64) {
+                value |= (data[bytePos + Long.BYTES] & 0xFFL) << 64 - offset;
+            }
+        } else {
+            value = 0L;
+            int read = 0;
+            int index = bytePos;
+            int shift = offset;
+            while (read < nbits) {
+                value |= (data[index] & 0xFFL) >>> shift << read;
+                read += 8 - shift;
+                shift = 0;
+                index++;
+            }
+        }
+        return nbits == 64 ? value : value & (1L << nbits) - 1;
+    }
+
+    /**
+     * Performs a logical OR of this bit set with the other.
+     *
+     * @param other a bit set of the same size
+     */
+    public void or(final FastBitSet other) {
+        checkSize(other);
+        final int words = data.length & ~7;
+        for (int i = 0; i < words; i += Long.BYTES) {
+            LONG_VIEW.set(data, i, (long) LONG_VIEW.get(data, i) | (long) LONG_VIEW.get(other.data, i));
+        }
+        for (int i = words; i < data.length; i++) {
+            data[i] |= other.data[i];
+        }
+    }
+
+    /**
+     * Performs a logical XOR of this bit set with the other.
+     *
+     * @param other a bit set of the same size
+     */
+    public void xor(final FastBitSet other) {
+        checkSize(other);
+        final int words = data.length & ~7;
+        for (int i = 0; i < words; i += Long.BYTES) {
+            LONG_VIEW.set(data, i, (long) LONG_VIEW.get(data, i) ^ (long) LONG_VIEW.get(other.data, i));
+        }
+        for (int i = words; i < data.length; i++) {
+            data[i] ^= other.data[i];
+        }
+    }
+
+    /**
+     * Returns the number of bits set to true.
+     *
+     * @return the number of true bits
+     */
+    public int cardinality() {
+        int count = 0;
+        final int words = data.length & ~7;
+        for (int i = 0; i < words; i += Long.BYTES) {
+            count += Long.bitCount((long) LONG_VIEW.get(data, i));
+        }
+        for (int i = words; i < data.length; i++) {
+            count += Integer.bitCount(data[i] & 0xFF);
+        }
+        return count;
+    }
+
+    private void checkSize(final FastBitSet other) {
+        if (data.length != other.data.length) {
+            throw new IllegalArgumentException("The size of bit sets is different: " + nbit + " != " + other.nbit);
+        }
+    }
+
+    /**
+     * Returns the internal byte array without copying.
+     *
+     * @return bits in little-endian order
+     */
     public byte[] toByteArray() {
         return data;
     }
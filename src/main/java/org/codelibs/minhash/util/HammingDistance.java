@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Counts different bits between byte arrays 8 bytes at a time.
+ * If the library is built with the vector profile and the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, the Vector API is used. Set the system property
+ * {@code org.codelibs.minhash.vector} to {@code false} to disable it.
+ *
+ * @author shinsuke
+ *
+ */
+public final class HammingDistance {
+
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final Kernel KERNEL = createKernel();
+
+    private HammingDistance() {
+    }
+
+    /**
+     * Counts different bits between byte arrays.
+     * Both arrays must have at least the length of data1.
+     *
+     * @param data1 bytes
+     * @param data2 bytes
+     * @return the number of different bits
+     */
+    public static int distance(final byte[] data1, final byte[] data2) {
+        return distance(data1, 0, data2, 0, data1.length);
+    }
+
+    /**
+     * Counts different bits between byte array ranges.
+     *
+     * @param data1 bytes
+     * @param offset1 the start position in data1
+     * @param data2 bytes
+     * @param offset2 the start position in data2
+     * @param length the number of bytes
+     * @return the number of different bits
+     */
+    public static int distance(final byte[] data1, final int offset1, final byte[] data2, final int offset2, final int length) {
+        if (KERNEL != null) {
+            return KERNEL.distance(data1, offset1, data2, offset2, length);
+        }
+        return scalarDistance(data1, offset1, data2, offset2, length);
+    }
+
+    /**
+     * Counts different bits between byte arrays, and stops as soon as the count exceeds maxDistance.
+     * Both arrays must have at least the length of data1.
+     *
+     * @param data1 bytes
+     * @param data2 bytes
+     * @param maxDistance the maximum number of different bits to count
+     * @return the number of different bits, or a value greater than maxDistance if it is exceeded
+     */
+    public static int distance(final byte[] data1, final byte[] data2, final int maxDistance) {
+        final int length = data1.length;
+        int count = 0;
+        int i = 0;
+        for (final int bound = length - 7; i < bound; i += 8) {
+            count += Long.bitCount((long) LONG_VIEW.get(data1, i) ^ (long) LONG_VIEW.get(data2, i));
+            if (count > maxDistance) {
+                return count;
+            }
+        }
+        for (; i < length; i++) {
+            count += Integer.bitCount((data1[i] ^ data2[i]) & 0xFF);
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if the Vector API is used.
+     *
+     * @return true if vectorized
+     */
+    public static boolean isVectorized() {
+        return KERNEL != null;
+    }
+
+    static int scalarDistance(final byte[] data1, final int offset1, final byte[] data2, final int offset2, final int length) {
+        int count = 0;
+        int i = 0;
+        for (final int bound = length - 7; i < bound; i += 8) {
+            count += Long.bitCount((long) LONG_VIEW.get(data1, offset1 + i) ^ (long) LONG_VIEW.get(data2, offset2 + i));
+        }
+        for (; i < length; i++) {
+            count += Integer.bitCount((data1[offset1 + i] ^ data2[offset2 + i]) & 0xFF);
+        }
+        return count;
+    }
+
+    private static Kernel createKernel() {
+        if (!Boolean.parseBoolean(System.getProperty("org.codelibs.minhash.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (Kernel) Class.forName("org.codelibs.minhash.util.VectorHammingDistance").getDeclaredConstructor().newInstance();
+        } catch (final ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    interface Kernel {
+        int distance(byte[] data1, int offset1, byte[] data2, int offset2, int length);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader which decodes a memory-mapped file.
+ * The file is mapped in windows, so that a file larger than 2GB can be read
+ * and the heap usage does not depend on the file size.
+ * Malformed input is replaced as {@link String#String(byte[], Charset)}.
+ *
+ * @author shinsuke
+ *
+ */
+public class MappedFileReader extends Reader {
+
+    private static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final CharsetDecoder decoder;
+
+    private final long size;
+
+    private final long windowSize;
+
+    private final char[] pending = new char[2];
+
+    private int pendingPos;
+
+    private int pendingLimit;
+
+    private MappedByteBuffer buffer;
+
+    private long windowStart;
+
+    private boolean flushed;
+
+    private boolean closed;
+
+    /**
+     * Opens a file.
+     *
+     * @param path a file path
+     * @param charset a charset of the file
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedFileReader(final Path path, final Charset charset) throws IOException {
+        this(path, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedFileReader(final Path path, final Charset charset, final long windowSize) throws IOException {
+        if (windowSize < 8) {
+            throw new IllegalArgumentException("windowSize is 8 or more.");
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        size = channel.size();
+        this.windowSize = windowSize;
+        map(0);
+    }
+
+    private void map(final long position) throws IOException {
+        windowStart = position;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (off < 0 || len < 0 || len > cbuf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (pendingPos < pendingLimit) {
+            cbuf[off] = pending[pendingPos++];
+            return 1;
+        }
+        if (len == 1) {
+            // a surrogate pair needs two chars
+            final int n = decode(CharBuffer.wrap(pending));
+            if (n <= 0) {
+                return n;
+            }
+            pendingPos = 1;
+            pendingLimit = n;
+            cbuf[off] = pending[0];
+            return 1;
+        }
+        return decode(CharBuffer.wrap(cbuf, off, len));
+    }
+
+    private int decode(final CharBuffer out) throws IOException {
+        if (flushed) {
+            return -1;
+        }
+        final int start = out.position();
+        while (out.position() == start) {
+            final boolean endOfInput = windowStart + buffer.limit() >= size;
+            final CoderResult result = decoder.decode(buffer, out, endOfInput);
+            if (result.isOverflow()) {
+                break;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (endOfInput) {
+                if (decoder.flush(out).isUnderflow()) {
+                    flushed = true;
+                }
+                if (out.position() == start) {
+                    return -1;
+                }
+                break;
+            }
+            // bytes of a partial char are read again from the next window
+            map(windowStart + buffer.position());
+        }
+        return out.position() - start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        buffer = null;
+        channel.close();
+    }
+}
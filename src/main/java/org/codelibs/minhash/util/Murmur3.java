@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.util;
+
+/**
+ * Allocation-free MurmurHash3 (x64, 128-bit) for char arrays.
+ * The result is the same as
+ * {@code Hashing.murmur3_128(seed).hashUnencodedChars(chars)} of Guava.
+ *
+ * @author shinsuke
+ *
+ */
+public final class Murmur3 {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private Murmur3() {
+    }
+
+    /**
+     * Computes the first 64 bits of the 128-bit hash.
+     *
+     * @param seed a seed
+     * @param chars a char array
+     * @param offset the start position in chars
+     * @param length the number of chars
+     * @return the same value as {@code HashCode.asLong()}
+     */
+    public static long hash64(final int seed, final char[] chars, final int offset, final int length) {
+        return process(seed, chars, offset, length, null);
+    }
+
+    /**
+     * Computes the 128-bit hash.
+     *
+     * @param seed a seed
+     * @param chars a char array
+     * @param offset the start position in chars
+     * @param length the number of chars
+     * @param out an array to store the lower 64 bits at index 0 and the upper 64 bits at index 1
+     */
+    public static void hash128(final int seed, final char[] chars, final int offset, final int length, final long[] out) {
+        process(seed, chars, offset, length, out);
+    }
+
+    /**
+     * Computes the 128-bit hash of a char sequence, such as a String, without copying it.
+     *
+     * @param seed a seed
+     * @param chars a char sequence
+     * @param out an array to store the lower 64 bits at index 0 and the upper 64 bits at index 1
+     */
+    public static void hash128(final int seed, final CharSequence chars, final long[] out) {
+        long h1 = seed;
+        long h2 = seed;
+
+        final int length = chars.length();
+        int pos = 0;
+        for (; pos + 8 <= length; pos += 8) {
+            final long k1 = chars.charAt(pos) | (long) chars.charAt(pos + 1) << 16 | (long) chars.charAt(pos + 2) << 32
+                    | (long) chars.charAt(pos + 3) << 48;
+            final long k2 = chars.charAt(pos + 4) | (long) chars.charAt(pos + 5) << 16 | (long) chars.charAt(pos + 6) << 32
+                    | (long) chars.charAt(pos + 7) << 48;
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = 0; pos < length; pos++, i++) {
+            if (i < 4) {
+                k1 |= (long) chars.charAt(pos) << (i << 4);
+            } else {
+                k2 |= (long) chars.charAt(pos) << (i - 4 << 4);
+            }
+        }
+        finish(h1, h2, k1, k2, length, out);
+    }
+
+    private static long process(final int seed, final char[] chars, final int offset, final int length, final long[] out) {
+        long h1 = seed;
+        long h2 = seed;
+
+        final int end = offset + length;
+        int pos = offset;
+        for (; pos + 8 <= end; pos += 8) {
+            final long k1 = chars[pos] | (long) chars[pos + 1] << 16 | (long) chars[pos + 2] << 32 | (long) chars[pos + 3] << 48;
+            final long k2 = chars[pos + 4] | (long) chars[pos + 5] << 16 | (long) chars[pos + 6] << 32 | (long) chars[pos + 7] << 48;
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = 0; pos < end; pos++, i++) {
+            if (i < 4) {
+                k1 |= (long) chars[pos] << (i << 4);
+            } else {
+                k2 |= (long) chars[pos] << (i - 4 << 4);
+            }
+        }
+        return finish(h1, h2, k1, k2, length, out);
+    }
+
+    /**
+     * Mixes the tail and finalizes the hash. An empty tail (0) does not change the hash.
+     */
+    private static long finish(long h1, long h2, final long k1, final long k2, final int length, final long[] out) {
+        h1 ^= mixK1(k1);
+        h2 ^= mixK2(k2);
+
+        final long len = (long) length << 1;
+        h1 ^= len;
+        h2 ^= len;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+
+        h1 += h2;
+        h2 += h1;
+
+        if (out != null) {
+            out[0] = h1;
+            out[1] = h2;
+        }
+        return h1;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    /**
+     * Finalization mix of MurmurHash3.
+     *
+     * @param k a value
+     * @return a mixed value
+     */
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.util;
+
+/**
+ * Rabin-Karp rolling hash over a sliding window of 64-bit values, such as chars or token hashes.
+ * A value is added and the oldest value is removed in constant time,
+ * so n-grams are hashed without building them.
+ *
+ * @author shinsuke
+ *
+ */
+public final class RollingHash {
+
+    // an odd multiplier is invertible modulo 2^64
+    private static final long BASE = 0x9E3779B97F4A7C15L;
+
+    private final long[] window;
+
+    private final long outPower;
+
+    private int size;
+
+    private int pos;
+
+    private long hash;
+
+    /**
+     * Creates a rolling hash.
+     *
+     * @param windowSize the number of values in a window
+     */
+    public RollingHash(final int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize is above 0.");
+        }
+        window = new long[windowSize];
+        long power = 1L;
+        for (int i = 1; i < windowSize; i++) {
+            power *= BASE;
+        }
+        outPower = power;
+    }
+
+    /**
+     * Adds a value to the window. If the window is full, the oldest value is removed.
+     *
+     * @param value a value
+     * @return true if the window is full
+     */
+    public boolean add(final long value) {
+        if (size == window.length) {
+            hash -= window[pos] * outPower;
+        } else {
+            size++;
+        }
+        hash = hash * BASE + value;
+        window[pos] = value;
+        if (++pos == window.length) {
+            pos = 0;
+        }
+        return size == window.length;
+    }
+
+    /**
+     * Returns a hash value of the values in the window.
+     *
+     * @return a hash value
+     */
+    public long hash() {
+        return Murmur3.fmix64(hash ^ size);
+    }
+
+    /**
+     * Returns the number of values in the window.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the window is full.
+     *
+     * @return true if full
+     */
+    public boolean isFull() {
+        return size == window.length;
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        size = 0;
+        pos = 0;
+        hash = 0L;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codelibs.minhash.analysis.HashMode;
+import org.codelibs.minhash.analysis.ShingleMinHashTokenFilter.ShingleType;
+
+import junit.framework.TestCase;
+
+public class CachingMinHashCalculatorTest extends TestCase {
+
+    public void test_calculate() throws IOException {
+        final SignatureCache cache = new SignatureCache(100);
+        final CachingMinHashCalculator calculator = new CachingMinHashCalculator(1, 0, 128, HashMode.INDEPENDENT, cache);
+        final String text = "Fess is very powerful and easily deployable Enterprise Search Server.";
+        final byte[] expected = MinHash.calculate(MinHash.createAnalyzer(1, 0, 128), text);
+        assertTrue(Arrays.equals(expected, calculator.calculate(text)));
+        assertTrue(Arrays.equals(expected, calculator.calculate(text)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // the same cache with another configuration
+        final CachingMinHashCalculator calculator2 = new CachingMinHashCalculator(4, 0, 128, HashMode.INDEPENDENT, cache);
+        final byte[] minhash2 = calculator2.calculate(text);
+        assertEquals(64, minhash2.length);
+        assertTrue(Arrays.equals(MinHash.calculate(MinHash.createAnalyzer(4, 0, 128), text), minhash2));
+        assertEquals(2, cache.size());
+        assertSame(cache, calculator2.getCache());
+    }
+
+    public void test_analyzer() throws IOException {
+        final SignatureCache cache = new SignatureCache(100);
+        final String text = "Fess is very powerful and easily deployable Enterprise Search Server.";
+        final CachingMinHashCalculator word = new CachingMinHashCalculator(1, 0, 128, HashMode.INDEPENDENT, cache);
+        final CachingMinHashCalculator shingle = new CachingMinHashCalculator(
+                MinHash.createAnalyzer(ShingleType.WORD, 3, 1, 0, 128, HashMode.INDEPENDENT), cache);
+        final byte[] expected = MinHash.calculate(MinHash.createAnalyzer(ShingleType.WORD, 3, 1, 0, 128, HashMode.INDEPENDENT), text);
+        assertFalse(Arrays.equals(expected, word.calculate(text)));
+        // the same parameters with another analyzer are not mixed
+        assertTrue(Arrays.equals(expected, shingle.calculate(text)));
+        assertTrue(Arrays.equals(expected, shingle.calculate(text)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        // calculators with the same id share signatures
+        final CachingMinHashCalculator character = new CachingMinHashCalculator("char3",
+                MinHash.createAnalyzer(ShingleType.CHARACTER, 3, 1, 0, 128, HashMode.INDEPENDENT), cache);
+        final CachingMinHashCalculator character2 = new CachingMinHashCalculator("char3",
+                MinHash.createAnalyzer(ShingleType.CHARACTER, 3, 1, 0, 128, HashMode.INDEPENDENT), cache);
+        final byte[] minhash = character.calculate(text);
+        assertFalse(Arrays.equals(expected, minhash));
+        assertTrue(Arrays.equals(minhash, character2.calculate(text)));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.size());
+    }
+
+    public void test_concurrent() throws Exception {
+        final CachingMinHashCalculator calculator = new CachingMinHashCalculator(1, 0, 64, HashMode.DOUBLE_HASHING,
+                new SignatureCache(10, 8));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final String text = "text " + i % 20;
+                futures.add(executor.submit(() -> calculator.calculate(text)));
+            }
+            final byte[] expected = MinHash.calculate(MinHash.createAnalyzer(1, 0, 64, HashMode.DOUBLE_HASHING), "text 3");
+            for (int i = 0; i < 200; i++) {
+                final byte[] minhash = futures.get(i).get();
+                if (i % 20 == 3) {
+                    assertTrue(Arrays.equals(expected, minhash));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(200, calculator.getCache().getHitCount() + calculator.getCache().getMissCount());
+        assertEquals(10, calculator.getCache().size());
+    }
+}
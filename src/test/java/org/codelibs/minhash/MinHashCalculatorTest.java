@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+
+import junit.framework.TestCase;
+
+public class MinHashCalculatorTest extends TestCase {
+
+    public void test_calculateAll_iterable() throws IOException {
+        final List<String> texts = createTexts(500);
+        final AtomicInteger created = new AtomicInteger();
+        try (MinHashCalculator calculator = new MinHashCalculator(() -> {
+            created.incrementAndGet();
+            return MinHash.createAnalyzer(1, 0, 128);
+        }, 4)) {
+            final List<byte[]> results = calculator.calculateAll(texts);
+            assertEquals(texts.size(), results.size());
+            final Analyzer analyzer = MinHash.createAnalyzer(1, 0, 128);
+            for (int i = 0; i < texts.size(); i++) {
+                assertTrue(Arrays.equals(MinHash.calculate(analyzer, texts.get(i)), results.get(i)));
+            }
+        }
+        // analyzers are reused
+        assertTrue(created.get() <= 4);
+    }
+
+    public void test_calculateAll_stream() throws IOException {
+        final List<String> texts = createTexts(300);
+        final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try (MinHashCalculator calculator = new MinHashCalculator(() -> MinHash.createAnalyzer(2, 1, 64), executor, 16)) {
+            final List<byte[]> results = calculator.calculateAll(texts.stream()).collect(Collectors.toList());
+            final Analyzer analyzer = MinHash.createAnalyzer(2, 1, 64);
+            assertEquals(texts.size(), results.size());
+            for (int i = 0; i < texts.size(); i++) {
+                assertTrue(Arrays.equals(MinHash.calculate(analyzer, texts.get(i)), results.get(i)));
+            }
+            assertTrue(Arrays.equals(MinHash.calculate(analyzer, texts.get(0)), calculator.calculate(texts.get(0))));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void test_calculateAll_empty() throws IOException {
+        try (MinHashCalculator calculator = new MinHashCalculator(() -> MinHash.createAnalyzer(1, 0, 128), 2)) {
+            assertTrue(calculator.calculateAll(new ArrayList<String>()).isEmpty());
+            assertEquals(0, calculator.calculateAll(new ArrayList<String>().stream()).count());
+        }
+    }
+
+    public void test_calculateAll_noToken() throws IOException {
+        final List<String> texts = Arrays.asList("", "word1 word2", "  ");
+        // MinHashTokenFilter emits a signature for a document without tokens
+        try (MinHashCalculator calculator = new MinHashCalculator(() -> MinHash.createAnalyzer(1, 0, 128), 2)) {
+            final Analyzer analyzer = MinHash.createAnalyzer(1, 0, 128);
+            final List<byte[]> results = calculator.calculateAll(texts.stream()).collect(Collectors.toList());
+            assertEquals(3, results.size());
+            for (int i = 0; i < texts.size(); i++) {
+                assertTrue(Arrays.equals(MinHash.calculate(analyzer, texts.get(i)), results.get(i)));
+            }
+        }
+        // an analyzer without a MinHash filter emits no token for an empty document
+        try (MinHashCalculator calculator = new MinHashCalculator(() -> new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                return new TokenStreamComponents(new WhitespaceTokenizer());
+            }
+        }, 2)) {
+            final List<byte[]> results = calculator.calculateAll(Arrays.asList("", "  ").stream()).collect(Collectors.toList());
+            assertEquals(2, results.size());
+            assertNull(results.get(0));
+            assertNull(results.get(1));
+            assertNull(calculator.calculateAll(Arrays.asList("")).get(0));
+        }
+    }
+
+    public void test_calculateAll_exception() {
+        try (MinHashCalculator calculator = new MinHashCalculator(() -> MinHash.createAnalyzer(new Tokenizer() {
+            @Override
+            public boolean incrementToken() throws IOException {
+                throw new IOException("test");
+            }
+        }, 1, 0, 128), 2)) {
+            try {
+                calculator.calculateAll(createTexts(10));
+                fail();
+            } catch (final IOException e) {
+                assertEquals("test", e.getMessage());
+            }
+            try {
+                calculator.calculateAll(createTexts(10).stream()).count();
+                fail();
+            } catch (final UncheckedIOException e) {
+                assertEquals("test", e.getCause().getMessage());
+            }
+        }
+    }
+
+    private static List<String> createTexts(final int size) {
+        final List<String> texts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final StringBuilder buf = new StringBuilder();
+            for (int j = 0; j < 50; j++) {
+                buf.append("word").append((i * 7 + j) % 97).append(' ');
+            }
+            texts.add(buf.toString());
+        }
+        return texts;
+    }
+}
@@ -16,8 +16,29 @@
 package org.codelibs.minhash;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.codelibs.minhash.analysis.HashMode;
+import org.codelibs.minhash.analysis.OnePermutationMinHashTokenFilter.Densification;
+import org.codelibs.minhash.analysis.ShingleMinHashTokenFilter.ShingleType;
+
+import com.google.common.io.BaseEncoding;
 
 import junit.framework.TestCase;
 
@@ -510,6 +531,84 @@ public class MinHashTest extends TestCase {
         assertEquals(numOfBits, data.numOfBits());
     }
 
+    public void test_isSimilar() {
+        final Random random = new Random(1);
+        for (int t = 0; t < 1000; t++) {
+            final byte[] data1 = new byte[1 + random.nextInt(40)];
+            random.nextBytes(data1);
+            final byte[] data2 = data1.clone();
+            for (int j = random.nextInt(data1.length * 8); j > 0; j--) {
+                final int bit = random.nextInt(data1.length * 8);
+                data2[bit / 8] ^= 1 << bit % 8;
+            }
+            final float similarity = MinHash.compare(data1, data2);
+            for (final float threshold : new float[] { 0f, 0.5f, 0.9f, similarity, Math.nextUp(similarity), 1.0f, 1.1f }) {
+                assertEquals(similarity >= threshold, MinHash.isSimilar(data1, data2, threshold));
+                assertEquals(MinHash.compare(100, data1, data2) >= threshold, MinHash.isSimilar(100, data1, data2, threshold));
+            }
+            final int distance = data1.length * 8 - Math.round(similarity * data1.length * 8);
+            assertTrue(MinHash.isWithinDistance(data1, data2, distance));
+            assertFalse(distance > 0 && MinHash.isWithinDistance(data1, data2, distance - 1));
+        }
+        assertFalse(MinHash.isSimilar(null, new byte[1], 0.5f));
+        assertFalse(MinHash.isSimilar(new byte[1], new byte[2], 0.5f));
+        assertFalse(MinHash.isWithinDistance(new byte[1], null, 8));
+        assertFalse(MinHash.isSimilar(new byte[1], new byte[1], Float.MAX_VALUE));
+        assertFalse(MinHash.isSimilar(new byte[1], new byte[1], Float.NaN));
+        assertTrue(MinHash.isSimilar(new byte[1], new byte[] { -1 }, -Float.MAX_VALUE));
+    }
+
+    public void test_createAnalyzer_shingle() throws IOException {
+        final Analyzer word = MinHash.createAnalyzer(ShingleType.WORD, 3, 1, 0, 256, HashMode.DOUBLE_HASHING);
+        final Analyzer character = MinHash.createAnalyzer(ShingleType.CHARACTER, 5, 1, 0, 256, HashMode.DOUBLE_HASHING);
+        final String text1 = "The quick brown fox jumps over the lazy dog near the river bank";
+        final String text2 = "The quick brown fox jumps over the lazy cat near the river bank";
+        final String text3 = "bank river the near dog lazy the over jumps fox brown quick The";
+        assertTrue(MinHash.compare(MinHash.calculate(word, text1), MinHash.calculate(word, text2)) > 0.7f);
+        // the same words in a different order are not similar
+        assertTrue(MinHash.compare(MinHash.calculate(word, text1), MinHash.calculate(word, text3)) < 0.7f);
+        assertTrue(MinHash.compare(MinHash.calculate(character, text1), MinHash.calculate(character, text2)) > 0.8f);
+        assertTrue(MinHash.compare(MinHash.calculate(character, text1), MinHash.calculate(character, text3)) < 0.8f);
+    }
+
+    public void test_calculateCharGrams() throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        final Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            buf.append((char) (0x4E00 + random.nextInt(500)));
+        }
+        final String text = buf.toString();
+        for (final HashMode hashMode : HashMode.values()) {
+            final Analyzer analyzer = MinHash.createAnalyzer(KeywordTokenizer::new, ShingleType.CHARACTER, 3, 1, 0, 64, hashMode);
+            final byte[] expected = MinHash.calculate(analyzer, text);
+            assertTrue(hashMode.toString(), Arrays.equals(expected, MinHash.calculateCharGrams(text, 3, 0, 64, 1, hashMode)));
+            assertTrue(hashMode.toString(),
+                    Arrays.equals(expected, MinHash.calculateCharGrams(new StringReader(text), 3, 0, 64, 1, hashMode)));
+            // signatures of different seeds are independent
+            final byte[] seeded = MinHash.calculateCharGrams(text, 3, 12345, 64, 1, hashMode);
+            assertFalse(hashMode.toString(), Arrays.equals(expected, seeded));
+            final float similarity = MinHash.compare(expected, seeded);
+            assertTrue(hashMode + ": " + similarity, similarity > 0.3f && similarity < 0.7f);
+        }
+
+        final String text1 = "東京都は日本の首都であり、世界有数の大都市である。";
+        final String text2 = "東京都は日本の首都であり、世界でも有数の大都市です。";
+        final String text3 = "大阪府は近畿地方の中心で、食文化でも知られている。";
+        final byte[] minhash1 = MinHash.calculateCharGrams(text1, 2, 0, 256, 1);
+        assertTrue(MinHash.compare(minhash1, MinHash.calculateCharGrams(text2, 2, 0, 256, 1)) > 0.75f);
+        assertTrue(MinHash.compare(minhash1, MinHash.calculateCharGrams(text3, 2, 0, 256, 1)) < 0.7f);
+        assertEquals(32, minhash1.length);
+
+        // shorter than k
+        assertFalse(Arrays.equals(MinHash.calculateCharGrams("ab", 3, 0, 64, 1), MinHash.calculateCharGrams("ba", 3, 0, 64, 1)));
+        try {
+            MinHash.calculateCharGrams("abc", 0, 0, 64, 1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     public void test_compare_differentLengths() {
         // When comparing byte arrays of different lengths, should return 0
         assertEquals(0.0f, MinHash.compare(new byte[] { 0x1 }, new byte[] { 0x1, 0x1 }));
@@ -896,4 +995,149 @@ public class MinHashTest extends TestCase {
         }
         assertEquals(80, MinHash.countSameBits(alt1, alt2)); // All bits match
     }
+
+    public void test_createAnalyzer_withHashMode() throws IOException {
+        final String text = "Fess is very powerful and easily deployable Enterprise Search Server.";
+        final String text1 = "Fess is very powerful and easily deployable Search Server.";
+        final String text2 = "Solr is the popular, blazing fast open source enterprise search platform";
+
+        final Analyzer analyzer = MinHash.createAnalyzer(1, 0, 128);
+        final Analyzer independent = MinHash.createAnalyzer(1, 0, 128, HashMode.INDEPENDENT);
+        assertEquals(MinHash.toBinaryString(MinHash.calculate(analyzer, text)),
+                MinHash.toBinaryString(MinHash.calculate(independent, text)));
+
+        for (final HashMode hashMode : HashMode.values()) {
+            final Analyzer modeAnalyzer = MinHash.createAnalyzer(1, 0, 128, hashMode);
+            final byte[] minhash = MinHash.calculate(modeAnalyzer, text);
+            assertEquals(16, minhash.length);
+            assertTrue(hashMode.name(), MinHash.compare(minhash, MinHash.calculate(modeAnalyzer, text1)) > 0.8f);
+            assertTrue(hashMode.name(), MinHash.compare(minhash, MinHash.calculate(modeAnalyzer, text2)) < 0.7f);
+        }
+    }
+
+    public void test_createOnePermutationAnalyzer() throws IOException {
+        final String text = "Fess is very powerful and easily deployable Enterprise Search Server.";
+        final String text1 = "Fess is very powerful and easily deployable Search Server.";
+        final String text2 = "Solr is the popular, blazing fast open source enterprise search platform";
+
+        for (final Densification densification : Densification.values()) {
+            final Analyzer analyzer = MinHash.createOnePermutationAnalyzer(1, 0, 128, densification);
+            final byte[] minhash = MinHash.calculate(analyzer, text);
+            assertEquals(16, minhash.length);
+            assertEquals(MinHash.toBinaryString(minhash), MinHash.toBinaryString(MinHash.calculate(analyzer, text)));
+            assertTrue(MinHash.compare(minhash, MinHash.calculate(analyzer, text1)) > 0.8f);
+            assertTrue(MinHash.compare(minhash, MinHash.calculate(analyzer, text2)) < 0.75f);
+        }
+    }
+
+    public void test_createAnalyzer_withTokenizerSupplier() throws IOException {
+        final String text = "Fess is very powerful and easily deployable Enterprise Search Server.";
+        final Analyzer analyzer = MinHash.createAnalyzer(WhitespaceTokenizer::new, 1, 0, 128);
+        assertEquals(
+                "00101010000100110011000101100000001101011101111010100010111101101000000011100010100100001111110110011101111101001010001110010101",
+                MinHash.toBinaryString(MinHash.calculate(analyzer, text)));
+        final Analyzer analyzer2 = MinHash.createAnalyzer(WhitespaceTokenizer::new, 1, 0, 128, HashMode.UNIVERSAL);
+        assertEquals(MinHash.toBinaryString(MinHash.calculate(MinHash.createAnalyzer(1, 0, 128, HashMode.UNIVERSAL), text)),
+                MinHash.toBinaryString(MinHash.calculate(analyzer2, text)));
+    }
+
+    public void test_createAnalyzer_concurrent() throws Exception {
+        final Analyzer[] analyzers = { MinHash.createAnalyzer(1, 0, 128), MinHash.createAnalyzer(WhitespaceTokenizer::new, 2, 3, 64),
+                MinHash.createOnePermutationAnalyzer(WhitespaceTokenizer::new, 1, 0, 128, Densification.OPTIMAL) };
+        final String[] texts = new String[50];
+        for (int i = 0; i < texts.length; i++) {
+            final StringBuilder buf = new StringBuilder();
+            for (int j = 0; j < 30 + i; j++) {
+                buf.append("token").append((i + j * 13) % 71).append(' ');
+            }
+            texts[i] = buf.toString();
+        }
+
+        for (final Analyzer analyzer : analyzers) {
+            final String[] expected = new String[texts.length];
+            for (int i = 0; i < texts.length; i++) {
+                expected[i] = MinHash.toBinaryString(MinHash.calculate(analyzer, texts[i]));
+            }
+
+            final int numOfThreads = 8;
+            final ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
+            try {
+                final CountDownLatch latch = new CountDownLatch(1);
+                final List<Future<Integer>> futures = new ArrayList<>();
+                for (int t = 0; t < numOfThreads; t++) {
+                    final int offset = t;
+                    futures.add(executor.submit(() -> {
+                        latch.await();
+                        int errors = 0;
+                        for (int n = 0; n < 500; n++) {
+                            final int i = (n + offset) % texts.length;
+                            if (!expected[i].equals(MinHash.toBinaryString(MinHash.calculate(analyzer, texts[i])))) {
+                                errors++;
+                            }
+                        }
+                        return errors;
+                    }));
+                }
+                latch.countDown();
+                for (final Future<Integer> future : futures) {
+                    assertEquals(0, future.get().intValue());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    public void test_calculate_keepsTermForOtherConsumers() throws IOException {
+        final Analyzer analyzer = MinHash.createAnalyzer(1, 0, 64);
+        final String text = "Fess is very powerful and easily deployable Enterprise Search Server.";
+        final byte[] minhash = MinHash.calculate(analyzer, text);
+
+        try (TokenStream stream = analyzer.tokenStream("minhash", text)) {
+            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            assertTrue(stream.incrementToken());
+            assertEquals(BaseEncoding.base64().encode(minhash), termAtt.toString());
+            stream.end();
+        }
+        assertEquals(MinHash.toBinaryString(minhash), MinHash.toBinaryString(MinHash.calculate(analyzer, text)));
+    }
+
+
+    public void test_calculate_readerAndPath() throws IOException {
+        final Analyzer analyzer = MinHash.createAnalyzer(1, 0, 128);
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            buf.append("単語").append(i % 997).append(' ');
+        }
+        final String text = buf.toString();
+        final String expected = MinHash.toBinaryString(MinHash.calculate(analyzer, text));
+
+        assertEquals(expected, MinHash.toBinaryString(MinHash.calculate(analyzer, new StringReader(text))));
+
+        final Path path = Files.createTempFile("minhash", ".txt");
+        try {
+            Files.writeString(path, text);
+            assertEquals(expected, MinHash.toBinaryString(MinHash.calculate(analyzer, path)));
+            Files.writeString(path, text, StandardCharsets.UTF_16);
+            assertEquals(expected, MinHash.toBinaryString(MinHash.calculate(analyzer, path, StandardCharsets.UTF_16)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+
+    public void test_createWeightedAnalyzer() throws IOException {
+        final Analyzer analyzer = MinHash.createWeightedAnalyzer(WhitespaceTokenizer::new, 4, 0, 256);
+        final byte[] data1 = MinHash.calculate(analyzer, "a a a a b b c");
+        final byte[] data2 = MinHash.calculate(analyzer, "b c a b a a a");
+        final byte[] data3 = MinHash.calculate(analyzer, "a b c c c c c");
+        assertEquals(128, data1.length);
+        assertEquals(1.0f, MinHash.compare(data1, data2));
+        // weighted Jaccard = (1 + 2 + 1) / (4 + 2 + 5) = 0.36
+        final float similarity = MinHash.compare(data1, data3);
+        assertTrue(String.valueOf(similarity), similarity > 0.3f && similarity < 0.7f);
+        assertTrue(similarity < MinHash.compare(data1, MinHash.calculate(analyzer, "a a a a b b c c")));
+    }
+
 }
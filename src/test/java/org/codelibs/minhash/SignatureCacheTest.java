@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.util.Arrays;
+
+import org.codelibs.minhash.analysis.HashMode;
+
+import junit.framework.TestCase;
+
+public class SignatureCacheTest extends TestCase {
+
+    public void test_heap() {
+        assertLru(new SignatureCache(2));
+    }
+
+    public void test_offHeap() {
+        final SignatureCache cache = new SignatureCache(2, 4);
+        assertTrue(cache.isOffHeap());
+        assertLru(cache);
+
+        // too long to cache
+        cache.put("long", 1, 0, 64, HashMode.INDEPENDENT, new byte[5]);
+        assertNull(cache.get("long", 1, 0, 64, HashMode.INDEPENDENT));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        for (int i = 0; i < 10; i++) {
+            cache.put("t" + i, 1, 0, 32, HashMode.INDEPENDENT, new byte[] { (byte) i });
+        }
+        assertEquals(2, cache.size());
+        assertTrue(Arrays.equals(new byte[] { 9 }, cache.get("t9", 1, 0, 32, HashMode.INDEPENDENT)));
+    }
+
+    public void test_id() {
+        final SignatureCache cache = new SignatureCache(10);
+        cache.put("shingle", "a", new byte[] { 1 });
+        cache.put("a", 1, 0, 32, HashMode.INDEPENDENT, new byte[] { 2 });
+        assertTrue(Arrays.equals(new byte[] { 1 }, cache.get("shingle", "a")));
+        assertTrue(Arrays.equals(new byte[] { 2 }, cache.get("a", 1, 0, 32, HashMode.INDEPENDENT)));
+        assertNull(cache.get("word", "a"));
+        assertEquals(2, cache.size());
+    }
+
+    private void assertLru(final SignatureCache cache) {
+        cache.put("a", 1, 0, 32, HashMode.INDEPENDENT, new byte[] { 1, 2, 3, 4 });
+        cache.put("b", 1, 0, 32, HashMode.INDEPENDENT, new byte[] { 5, 6 });
+        assertTrue(Arrays.equals(new byte[] { 1, 2, 3, 4 }, cache.get("a", 1, 0, 32, HashMode.INDEPENDENT)));
+        // different configurations
+        assertNull(cache.get("a", 2, 0, 32, HashMode.INDEPENDENT));
+        assertNull(cache.get("a", 1, 1, 32, HashMode.INDEPENDENT));
+        assertNull(cache.get("a", 1, 0, 16, HashMode.INDEPENDENT));
+        assertNull(cache.get("a", 1, 0, 32, HashMode.UNIVERSAL));
+
+        // "b" is the least recently used
+        cache.put("c", 1, 0, 32, HashMode.INDEPENDENT, new byte[] { 7 });
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b", 1, 0, 32, HashMode.INDEPENDENT));
+        assertTrue(Arrays.equals(new byte[] { 7 }, cache.get("c", 1, 0, 32, HashMode.INDEPENDENT)));
+
+        // replace
+        cache.put("c", 1, 0, 32, HashMode.INDEPENDENT, new byte[] { 8, 9 });
+        assertTrue(Arrays.equals(new byte[] { 8, 9 }, cache.get("c", 1, 0, 32, HashMode.INDEPENDENT)));
+        assertTrue(Arrays.equals(new byte[] { 1, 2, 3, 4 }, cache.get("a", 1, 0, 32, HashMode.INDEPENDENT)));
+
+        assertEquals(4, cache.getHitCount());
+        assertEquals(5, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(4.0 / 9, cache.getHitRate(), 0.0001);
+    }
+
+    public void test_invalidArguments() {
+        try {
+            new SignatureCache(0);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new SignatureCache(Integer.MAX_VALUE, 64);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
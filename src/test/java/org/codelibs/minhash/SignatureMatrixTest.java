@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+public class SignatureMatrixTest extends TestCase {
+
+    public void test_addAndGet() {
+        final SignatureMatrix matrix = new SignatureMatrix(3, 1);
+        assertEquals(0, matrix.add(new byte[] { 1, 2, 3 }));
+        assertEquals(1, matrix.add(new byte[] { -1, -2, -3 }));
+        assertEquals(2, matrix.add(new byte[] { 0, 0, (byte) 0x80 }));
+        assertEquals(3, matrix.size());
+        assertEquals(3, matrix.getSignatureLength());
+        assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, matrix.get(0)));
+        assertTrue(Arrays.equals(new byte[] { -1, -2, -3 }, matrix.get(1)));
+        assertTrue(Arrays.equals(new byte[] { 0, 0, (byte) 0x80 }, matrix.get(2)));
+
+        try {
+            matrix.get(3);
+            fail();
+        } catch (final IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            matrix.add(new byte[] { 1, 2 });
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void test_compareAll_sameAsCompare() {
+        final Random random = new Random(1);
+        for (final int length : new int[] { 1, 7, 8, 16, 20, 32, 64 }) {
+            final SignatureMatrix matrix = new SignatureMatrix(length);
+            final List<byte[]> signatures = createSignatures(random, length, 500);
+            signatures.forEach(matrix::add);
+            final byte[] query = createSignatures(random, length, 1).get(0);
+
+            final float[] out = new float[matrix.size()];
+            matrix.compareAll(query, out);
+            for (int i = 0; i < signatures.size(); i++) {
+                assertEquals(MinHash.compare(query, signatures.get(i)), out[i]);
+                assertEquals(MinHash.compare(query, signatures.get(i)), matrix.compare(i, query));
+            }
+        }
+    }
+
+    public void test_compareAll_withPool() {
+        final Random random = new Random(2);
+        final SignatureMatrix matrix = new SignatureMatrix(16);
+        final List<byte[]> signatures = createSignatures(random, 16, 20000);
+        signatures.forEach(matrix::add);
+        final byte[] query = signatures.get(123);
+
+        final float[] expected = new float[matrix.size()];
+        matrix.compareAll(query, expected);
+        final float[] actual = new float[matrix.size()];
+        matrix.compareAll(query, actual, ForkJoinPool.commonPool());
+        assertTrue(Arrays.equals(expected, actual));
+        assertEquals(1.0f, actual[123]);
+    }
+
+    public void test_topK() {
+        final Random random = new Random(3);
+        final SignatureMatrix matrix = new SignatureMatrix(8);
+        final List<byte[]> signatures = createSignatures(random, 8, 10000);
+        signatures.forEach(matrix::add);
+        final byte[] query = createSignatures(random, 8, 1).get(0);
+
+        final List<SignatureMatrix.Match> expected = new ArrayList<>();
+        for (int i = 0; i < signatures.size(); i++) {
+            expected.add(new SignatureMatrix.Match(i, MinHash.compare(query, signatures.get(i))));
+        }
+        expected.sort(Comparator.comparing(SignatureMatrix.Match::similarity).reversed().thenComparing(SignatureMatrix.Match::index));
+
+        assertEquals(expected.subList(0, 10), matrix.topK(query, 10));
+        assertEquals(expected.subList(0, 10), matrix.topK(query, 10, ForkJoinPool.commonPool()));
+        assertEquals(expected.subList(0, 1), matrix.topK(query, 1));
+        assertEquals(expected, matrix.topK(query, 20000));
+        assertTrue(matrix.topK(query, 0).isEmpty());
+    }
+
+    public void test_topK_empty() {
+        final SignatureMatrix matrix = new SignatureMatrix(8);
+        assertTrue(matrix.topK(new byte[8], 5).isEmpty());
+    }
+
+    private static List<byte[]> createSignatures(final Random random, final int length, final int size) {
+        final List<byte[]> signatures = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final byte[] signature = new byte[length];
+            random.nextBytes(signature);
+            signatures.add(signature);
+        }
+        return signatures;
+    }
+}
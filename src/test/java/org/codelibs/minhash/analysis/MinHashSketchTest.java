@@ -0,0 +1,303 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.codelibs.minhash.MinHash;
+
+import junit.framework.TestCase;
+
+public class MinHashSketchTest extends TestCase {
+
+    private static final String TEXT = "Fess is very powerful and easily deployable Enterprise Search Server. 全文検索 サーバー";
+
+    public void test_update_sameAsFilter() throws Exception {
+        for (final HashMode hashMode : HashMode.values()) {
+            final Analyzer analyzer = MinHash.createAnalyzer(2, 10, 64, hashMode);
+            final MinHashSketch sketch = new MinHashSketch(10, 64, hashMode);
+            for (final String token : TEXT.split(" ")) {
+                sketch.update(token);
+            }
+            assertEquals(hashMode.name(), MinHash.toBinaryString(MinHash.calculate(analyzer, TEXT)),
+                    MinHash.toBinaryString(sketch.toSignature(2)));
+        }
+    }
+
+    public void test_update_charArray() {
+        final char[] chars = "xxFessxx".toCharArray();
+        final MinHashSketch sketch1 = new MinHashSketch(0, 32).update("Fess");
+        final MinHashSketch sketch2 = new MinHashSketch(0, 32).update(chars, 2, 4);
+        assertEquals(MinHash.toBinaryString(sketch1.toSignature(1)), MinHash.toBinaryString(sketch2.toSignature(1)));
+    }
+
+    public void test_merge() {
+        final String[] tokens = TEXT.split(" ");
+        for (final HashMode hashMode : HashMode.values()) {
+            final MinHashSketch all = new MinHashSketch(0, 128, hashMode);
+            final MinHashSketch first = new MinHashSketch(0, 128, hashMode);
+            final MinHashSketch second = new MinHashSketch(0, 128, hashMode);
+            for (int i = 0; i < tokens.length; i++) {
+                all.update(tokens[i]);
+                (i < tokens.length / 2 ? first : second).update(tokens[i]);
+            }
+            assertEquals(MinHash.toBinaryString(all.toSignature(1)), MinHash.toBinaryString(first.merge(second).toSignature(1)));
+        }
+
+        try {
+            new MinHashSketch(0, 128).merge(new MinHashSketch(1, 128));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // ignore
+        }
+        try {
+            new MinHashSketch(0, 128).merge(new MinHashSketch(0, 64));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // ignore
+        }
+    }
+
+    public void test_clear() {
+        final MinHashSketch sketch = new MinHashSketch(0, 16).update("fess");
+        sketch.clear();
+        for (final long value : sketch.getMinHashValues()) {
+            assertEquals(Long.MAX_VALUE, value);
+        }
+    }
+
+    public void test_toByteArray() {
+        final MinHashSketch sketch = new MinHashSketch(5, 32, HashMode.UNIVERSAL);
+        for (final String token : TEXT.split(" ")) {
+            sketch.update(token);
+        }
+        final byte[] data = sketch.toByteArray();
+        assertEquals(10 + 32 * 8, data.length);
+
+        final MinHashSketch restored = MinHashSketch.fromByteArray(data);
+        assertEquals(5, restored.getSeed());
+        assertEquals(32, restored.getNum());
+        assertEquals(HashMode.UNIVERSAL, restored.getHashMode());
+        assertEquals(MinHash.toBinaryString(sketch.toSignature(4)), MinHash.toBinaryString(restored.toSignature(4)));
+
+        // a restored sketch can be updated
+        sketch.update("more");
+        restored.update("more");
+        assertEquals(MinHash.toBinaryString(sketch.toSignature(4)), MinHash.toBinaryString(restored.toSignature(4)));
+
+        try {
+            MinHashSketch.fromByteArray(new byte[] { 1, 0, 0 });
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // ignore
+        }
+    }
+
+    public void test_fromByteArray_invalidNum() throws Exception {
+        // num is checked before the values are allocated
+        for (final byte version : new byte[] { 1, 2 }) {
+            final byte[] data = header(version, Integer.MAX_VALUE);
+            try {
+                MinHashSketch.fromByteArray(data);
+                fail();
+            } catch (final IllegalArgumentException e) {
+                // ignore
+            }
+            try {
+                MinHashSketch.readFrom(new ByteArrayInputStream(data));
+                fail();
+            } catch (final IllegalArgumentException e) {
+                // ignore
+            }
+        }
+
+        // values are shorter than num
+        final byte[] data = Arrays.copyOf(header((byte) 1, 1000), 10 + 10 * 8);
+        try {
+            MinHashSketch.fromByteArray(data);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // ignore
+        }
+        try {
+            MinHashSketch.readFrom(new ByteArrayInputStream(data));
+            fail();
+        } catch (final EOFException e) {
+            // ignore
+        }
+    }
+
+    private static byte[] header(final byte version, final int num) {
+        return ByteBuffer.allocate(10).put(version).put((byte) HashMode.UNIVERSAL.ordinal()).putInt(0).putInt(num).array();
+    }
+
+    public void test_mergeAll_chunks() throws Exception {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buf.append("word").append(i * 7 % 301).append(' ');
+        }
+        final String text = buf.toString();
+        final Analyzer minhashAnalyzer = MinHash.createAnalyzer(1, 0, 128);
+        final byte[] expected = MinHash.calculate(minhashAnalyzer, text);
+
+        // each worker sends a serialized sketch of its chunk
+        final List<byte[]> messages = new ArrayList<>();
+        try (Analyzer tokenizer = new WhitespaceAnalyzer()) {
+            final String[] tokens = text.split(" ");
+            final int chunkSize = tokens.length / 3 + 1;
+            for (int i = 0; i < tokens.length; i += chunkSize) {
+                final String chunk = String.join(" ", Arrays.copyOfRange(tokens, i, Math.min(i + chunkSize, tokens.length)));
+                final MinHashSketch sketch = new MinHashSketch(0, 128);
+                try (TokenStream stream = tokenizer.tokenStream("minhash", chunk)) {
+                    sketch.update(stream);
+                }
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                sketch.writeTo(out);
+                messages.add(out.toByteArray());
+            }
+        }
+        assertEquals(3, messages.size());
+
+        final List<MinHashSketch> sketches = new ArrayList<>();
+        for (final byte[] message : messages) {
+            sketches.add(MinHashSketch.readFrom(new ByteArrayInputStream(message)));
+        }
+        sketches.add(new MinHashSketch(0, 128));
+        final long[] first = sketches.get(0).getMinHashValues();
+        final MinHashSketch merged = MinHashSketch.mergeAll(sketches);
+        assertEquals(MinHash.toBinaryString(expected), MinHash.toBinaryString(merged.toSignature(1)));
+        // inputs are not changed
+        assertTrue(Arrays.equals(first, sketches.get(0).getMinHashValues()));
+
+        try {
+            MinHashSketch.mergeAll(new ArrayList<>());
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // ignore
+        }
+    }
+
+    public void test_toByteArray_empty() throws Exception {
+        final MinHashSketch sketch = new MinHashSketch(3, 64, HashMode.DOUBLE_HASHING);
+        assertTrue(sketch.isEmpty());
+        final byte[] data = sketch.toByteArray();
+        assertEquals(10, data.length);
+        final MinHashSketch restored = MinHashSketch.fromByteArray(data);
+        assertTrue(restored.isEmpty());
+        assertEquals(64, restored.getNum());
+        assertEquals(HashMode.DOUBLE_HASHING, restored.getHashMode());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sketch.writeTo(out);
+        new MinHashSketch(3, 64, HashMode.DOUBLE_HASHING).update("fess").writeTo(out);
+        final ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertTrue(MinHashSketch.readFrom(in).isEmpty());
+        assertFalse(MinHashSketch.readFrom(in).isEmpty());
+        try {
+            MinHashSketch.readFrom(in);
+            fail();
+        } catch (final EOFException e) {
+            // ignore
+        }
+    }
+
+
+    public void test_superMinHash_restored() {
+        final MinHashSketch sketch = new MinHashSketch(0, 64, HashMode.SUPER_MINHASH);
+        final MinHashSketch restored = MinHashSketch.fromByteArray(sketch.update("a").update("b").toByteArray());
+        for (int i = 0; i < 100; i++) {
+            sketch.update("t" + i);
+            restored.update("t" + i);
+        }
+        assertEquals(MinHash.toBinaryString(sketch.toSignature(8)), MinHash.toBinaryString(restored.toSignature(8)));
+
+        // chunks are merged by ranks
+        final MinHashSketch chunk1 = new MinHashSketch(0, 64, HashMode.SUPER_MINHASH).update("a").update("b");
+        final MinHashSketch chunk2 = new MinHashSketch(0, 64, HashMode.SUPER_MINHASH);
+        for (int i = 0; i < 100; i++) {
+            (i % 2 == 0 ? chunk1 : chunk2).update("t" + i);
+        }
+        final MinHashSketch merged = MinHashSketch.fromByteArray(chunk1.toByteArray())
+                .merge(MinHashSketch.fromByteArray(chunk2.toByteArray()));
+        assertTrue(Arrays.equals(sketch.getMinHashValues(), merged.getMinHashValues()));
+        merged.update("c");
+        sketch.update("c");
+        assertTrue(Arrays.equals(sketch.getMinHashValues(), merged.getMinHashValues()));
+    }
+
+    public void test_superMinHash_variance() {
+        // J = 50 / 150
+        final int num = 64;
+        final double expected = 1.0 / 3;
+        double independentError = 0;
+        double superError = 0;
+        for (int trial = 0; trial < 1000; trial++) {
+            independentError += squaredError(trial, num, HashMode.INDEPENDENT, expected);
+            superError += squaredError(trial, num, HashMode.SUPER_MINHASH, expected);
+        }
+        assertTrue(superError + " < " + independentError, superError < independentError * 0.8);
+    }
+
+    public void test_bBitSignature() {
+        // |A| = |B| = 2000, J = 1000 / 3000 for the overlapped texts
+        for (final HashMode hashMode : HashMode.values()) {
+            final MinHashSketch sketch1 = new MinHashSketch(0, 128, hashMode);
+            final MinHashSketch sketch2 = new MinHashSketch(0, 128, hashMode);
+            final MinHashSketch sketch3 = new MinHashSketch(0, 128, hashMode);
+            for (int i = 0; i < 2000; i++) {
+                sketch1.update("a" + i);
+                sketch2.update("b" + i);
+                sketch3.update("a" + (i + 1000));
+            }
+            // MinHash.compare counts equal bits, and bits of different tokens are equal with probability 1/2
+            for (final int hashBit : new int[] { 1, 8 }) {
+                final float disjoint = MinHash.compare(sketch1.toSignature(hashBit), sketch2.toSignature(hashBit));
+                assertTrue(hashMode + ": " + disjoint, Math.abs(disjoint - 0.5f) < 0.15f);
+                final float overlapped = MinHash.compare(sketch1.toSignature(hashBit), sketch3.toSignature(hashBit));
+                assertTrue(hashMode + ": " + overlapped, Math.abs(overlapped - (1 + 1.0f / 3) / 2) < 0.15f);
+            }
+        }
+    }
+
+    private static double squaredError(final int trial, final int num, final HashMode hashMode, final double expected) {
+        final MinHashSketch sketch1 = new MinHashSketch(trial * 1000, num, hashMode);
+        final MinHashSketch sketch2 = new MinHashSketch(trial * 1000, num, hashMode);
+        for (int i = 0; i < 100; i++) {
+            sketch1.update("a" + i);
+            sketch2.update("a" + (i + 50));
+        }
+        final long[] values1 = sketch1.getMinHashValues();
+        final long[] values2 = sketch2.getMinHashValues();
+        int count = 0;
+        for (int i = 0; i < num; i++) {
+            if (values1[i] == values2[i]) {
+                count++;
+            }
+        }
+        final double error = (double) count / num - expected;
+        return error * error;
+    }
+
+}
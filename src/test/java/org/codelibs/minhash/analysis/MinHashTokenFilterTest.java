@@ -17,6 +17,8 @@ package org.codelibs.minhash.analysis;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
 
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
@@ -372,4 +374,174 @@ public class MinHashTokenFilterTest extends TestCase {
         filter.end();
         filter.close();
     }
+
+    public void test_incrementToken_independentModeIsCompatible() throws IOException {
+        final HashFunction[] hashFunctions = new HashFunction[32];
+        for (int i = 0; i < hashFunctions.length; i++) {
+            hashFunctions[i] = Hashing.murmur3_128(i);
+        }
+
+        final String expected = minHash(new MinHashTokenFilter(newTokenizer("hello world test"), hashFunctions, 1));
+        final String actual = minHash(new MinHashTokenFilter(newTokenizer("hello world test"), hashFunctions, 1, HashMode.INDEPENDENT));
+        assertEquals(expected, actual);
+    }
+
+    public void test_incrementToken_derivedModes() throws IOException {
+        final HashFunction[] hashFunctions = new HashFunction[64];
+        for (int i = 0; i < hashFunctions.length; i++) {
+            hashFunctions[i] = Hashing.murmur3_128(i);
+        }
+
+        for (final HashMode hashMode : new HashMode[] { HashMode.UNIVERSAL, HashMode.DOUBLE_HASHING }) {
+            final String hash1 = minHash(new MinHashTokenFilter(newTokenizer("hello world test"), hashFunctions, 1, hashMode));
+            final String hash2 = minHash(new MinHashTokenFilter(newTokenizer("test world hello"), hashFunctions, 1, hashMode));
+            final String hash3 = minHash(new MinHashTokenFilter(newTokenizer("foo bar baz"), hashFunctions, 1, hashMode));
+
+            // Same token set produces the same signature
+            assertEquals(hashMode.name(), hash1, hash2);
+            assertFalse(hashMode.name(), hash1.equals(hash3));
+            assertEquals(8, BaseEncoding.base64().decode(hash1).length);
+        }
+    }
+
+    public void test_universalHash() {
+        final BigInteger p = BigInteger.ONE.shiftLeft(61).subtract(BigInteger.ONE);
+        final long[][] values = { { 1, 0, 0 }, { 1, 0, (1L << 61) - 2 }, { (1L << 61) - 2, (1L << 61) - 2, (1L << 61) - 2 },
+                { 123456789012345L, 987654321L, 1L << 60 }, { 0x1234567890ABCL, 0x1FFFFFFFFFFFFFFFL - 1, 42 } };
+        for (final long[] v : values) {
+            final long expected = BigInteger.valueOf(v[0])
+                    .multiply(BigInteger.valueOf(v[2]))
+                    .add(BigInteger.valueOf(v[1]))
+                    .mod(p)
+                    .longValue();
+            assertEquals(expected, MinHashTokenFilter.universalHash(v[0], v[1], v[2]));
+        }
+    }
+
+    public void test_incrementToken_seedConstructorIsCompatible() throws IOException {
+        final String text = "Fess is very powerful and easily deployable Enterprise Search Server. 全文検索 サーバー";
+        final HashFunction[] hashFunctions = new HashFunction[64];
+        for (int i = 0; i < hashFunctions.length; i++) {
+            hashFunctions[i] = Hashing.murmur3_128(10 + i);
+        }
+        for (final HashMode hashMode : HashMode.values()) {
+            final String expected = minHash(new MinHashTokenFilter(newTokenizer(text), hashFunctions, 2, hashMode));
+            final String actual = minHash(new MinHashTokenFilter(newTokenizer(text), 10, 64, 2, hashMode));
+            assertEquals(hashMode.name(), expected, actual);
+        }
+    }
+
+    public void test_incrementToken_noAllocationPerToken() throws IOException {
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        final long threadId = Thread.currentThread().threadId();
+        final int numOfTokens = 100000;
+
+        for (final HashMode hashMode : HashMode.values()) {
+            final RepeatingTokenStream input = new RepeatingTokenStream(numOfTokens, "fess", "is", "very", "powerful", "enterprise",
+                    "search", "server");
+            final MinHashTokenFilter filter = new MinHashTokenFilter(input, 0, 32, 1, hashMode);
+            // warm up
+            for (int i = 0; i < 5; i++) {
+                filter.reset();
+                filter.incrementToken();
+                filter.end();
+            }
+
+            filter.reset();
+            final long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            assertTrue(filter.incrementToken());
+            final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+            filter.end();
+            filter.close();
+
+            // only the output token is allocated
+            assertTrue(hashMode + ": " + allocated + " bytes", allocated < numOfTokens / 10);
+        }
+    }
+
+    public void test_signatureAttribute() throws IOException {
+        final String text = "Fess is very powerful and easily deployable Enterprise Search Server.";
+        final WhitespaceTokenizer tokenizer = newTokenizer(text);
+        final MinHashTokenFilter filter = new MinHashTokenFilter(tokenizer, 0, 64, 1, HashMode.INDEPENDENT);
+        final CharTermAttribute termAttr = filter.addAttribute(CharTermAttribute.class);
+        final MinHashSignatureAttribute signatureAttr = filter.addAttribute(MinHashSignatureAttribute.class);
+        assertTrue(signatureAttr.isTermRequired());
+
+        filter.reset();
+        assertTrue(filter.incrementToken());
+        final byte[] signature = signatureAttr.getSignature();
+        assertEquals(8, signature.length);
+        assertEquals(BaseEncoding.base64().encode(signature), termAttr.toString());
+        filter.end();
+        filter.close();
+
+        tokenizer.setReader(new StringReader(text));
+        signatureAttr.setTermRequired(false);
+        filter.reset();
+        assertTrue(filter.incrementToken());
+        assertEquals(BaseEncoding.base64().encode(signature), BaseEncoding.base64().encode(signatureAttr.getSignature()));
+        assertEquals(0, termAttr.length());
+        assertFalse(signatureAttr.isTermRequired());
+        assertFalse(filter.incrementToken());
+        filter.end();
+        filter.close();
+    }
+
+    private static WhitespaceTokenizer newTokenizer(final String text) {
+        final WhitespaceTokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader(text));
+        return tokenizer;
+    }
+
+    private static String minHash(final MinHashTokenFilter filter) throws IOException {
+        final CharTermAttribute termAttr = filter.addAttribute(CharTermAttribute.class);
+        filter.reset();
+        assertTrue(filter.incrementToken());
+        final String value = termAttr.toString();
+        assertFalse(filter.incrementToken());
+        filter.end();
+        filter.close();
+        return value;
+    }
+
+    private static class RepeatingTokenStream extends TokenStream {
+
+        private final CharTermAttribute termAttr = addAttribute(CharTermAttribute.class);
+
+        private final char[][] terms;
+
+        private final int numOfTokens;
+
+        private int count;
+
+        RepeatingTokenStream(final int numOfTokens, final String... terms) {
+            this.numOfTokens = numOfTokens;
+            this.terms = new char[terms.length][];
+            for (int i = 0; i < terms.length; i++) {
+                this.terms[i] = terms[i].toCharArray();
+            }
+        }
+
+        @Override
+        public boolean incrementToken() {
+            if (count >= numOfTokens) {
+                return false;
+            }
+            clearAttributes();
+            final char[] term = terms[count % terms.length];
+            termAttr.copyBuffer(term, 0, term.length);
+            count++;
+            return true;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            count = 0;
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.codelibs.minhash.MinHash;
+import org.codelibs.minhash.analysis.OnePermutationMinHashTokenFilter.Densification;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+
+import junit.framework.TestCase;
+
+public class OnePermutationMinHashTokenFilterTest extends TestCase {
+
+    private static final long E = Long.MAX_VALUE;
+
+    public void test_densify_rotation() {
+        final long offset = 0x9E3779B97F4A7C15L;
+        final long[] bins = new long[] { E, 5, E, E, 9 };
+        OnePermutationMinHashTokenFilter.densify(bins, Densification.ROTATION, 0);
+        assertEquals(5 + offset, bins[0]);
+        assertEquals(5, bins[1]);
+        assertEquals(9 + 2 * offset, bins[2]);
+        assertEquals(9 + offset, bins[3]);
+        assertEquals(9, bins[4]);
+
+        // wrap around to the first bin
+        final long[] bins2 = new long[] { 3, E, E };
+        OnePermutationMinHashTokenFilter.densify(bins2, Densification.ROTATION, 0);
+        assertEquals(3, bins2[0]);
+        assertEquals(3 + 2 * offset, bins2[1]);
+        assertEquals(3 + offset, bins2[2]);
+    }
+
+    public void test_densify_optimal() {
+        final long[] bins = new long[] { E, 5, E, E, 9, E, E, E };
+        OnePermutationMinHashTokenFilter.densify(bins, Densification.OPTIMAL, 1);
+        for (final long value : bins) {
+            assertTrue(value == 5 || value == 9);
+        }
+        assertEquals(5, bins[1]);
+        assertEquals(9, bins[4]);
+
+        final long[] bins2 = new long[] { E, 5, E, E, 9, E, E, E };
+        OnePermutationMinHashTokenFilter.densify(bins2, Densification.OPTIMAL, 1);
+        for (int i = 0; i < bins.length; i++) {
+            assertEquals(bins[i], bins2[i]);
+        }
+    }
+
+    public void test_densify_allEmptyOrFull() {
+        final long[] empty = new long[] { E, E, E };
+        OnePermutationMinHashTokenFilter.densify(empty, Densification.OPTIMAL, 0);
+        assertEquals(E, empty[0]);
+        assertEquals(E, empty[1]);
+        assertEquals(E, empty[2]);
+
+        final long[] full = new long[] { 1, 2, 3 };
+        OnePermutationMinHashTokenFilter.densify(full, Densification.ROTATION, 0);
+        assertEquals(1, full[0]);
+        assertEquals(2, full[1]);
+        assertEquals(3, full[2]);
+    }
+
+    public void test_incrementToken() throws IOException {
+        final HashFunction hashFunction = Hashing.murmur3_128(0);
+        for (final Densification densification : Densification.values()) {
+            final String hash1 = minHash(new OnePermutationMinHashTokenFilter(newTokenizer("hello world test"), hashFunction, 64, 1,
+                    densification));
+            final String hash2 = minHash(new OnePermutationMinHashTokenFilter(newTokenizer("test hello world hello"), hashFunction, 64, 1,
+                    densification));
+            final String hash3 = minHash(new OnePermutationMinHashTokenFilter(newTokenizer("foo bar baz"), hashFunction, 64, 1,
+                    densification));
+            assertEquals(8, BaseEncoding.base64().decode(hash1).length);
+            assertEquals(hash1, hash2);
+            assertFalse(hash1.equals(hash3));
+        }
+    }
+
+    public void test_incrementToken_withEmptyInput() throws IOException {
+        final String hash = minHash(new OnePermutationMinHashTokenFilter(newTokenizer(""), Hashing.murmur3_128(0), 16, 1));
+        assertEquals(2, BaseEncoding.base64().decode(hash).length);
+    }
+
+    public void test_similarity() throws IOException {
+        // Jaccard similarity of the two texts is 1/3.
+        final StringBuilder buf1 = new StringBuilder();
+        final StringBuilder buf2 = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            buf1.append("a").append(i).append(' ');
+            buf2.append("a").append(i + 1000).append(' ');
+        }
+        for (final Densification densification : Densification.values()) {
+            final HashFunction hashFunction = Hashing.murmur3_128(1);
+            final byte[] minhash1 = BaseEncoding.base64()
+                    .decode(minHash(new OnePermutationMinHashTokenFilter(newTokenizer(buf1.toString()), hashFunction, 256, 8,
+                            densification)));
+            final byte[] minhash2 = BaseEncoding.base64()
+                    .decode(minHash(new OnePermutationMinHashTokenFilter(newTokenizer(buf2.toString()), hashFunction, 256, 8,
+                            densification)));
+            int same = 0;
+            for (int i = 0; i < minhash1.length; i++) {
+                if (minhash1[i] == minhash2[i]) {
+                    same++;
+                }
+            }
+            final float estimate = (float) same / minhash1.length;
+            assertTrue(densification + ": " + estimate, estimate > 0.23f && estimate < 0.45f);
+            assertTrue(MinHash.compare(minhash1, minhash2) > 0.55f);
+        }
+    }
+
+    public void test_incrementToken_seedConstructorIsCompatible() throws IOException {
+        final String text = "Fess is very powerful and easily deployable Enterprise Search Server.";
+        for (final Densification densification : Densification.values()) {
+            final String expected = minHash(
+                    new OnePermutationMinHashTokenFilter(newTokenizer(text), Hashing.murmur3_128(7), 32, 1, densification));
+            final String actual = minHash(new OnePermutationMinHashTokenFilter(newTokenizer(text), 7, 32, 1, densification));
+            assertEquals(expected, actual);
+        }
+    }
+
+    public void test_constructor_invalidNum() {
+        try {
+            new OnePermutationMinHashTokenFilter(new WhitespaceTokenizer(), Hashing.murmur3_128(0), 0, 1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static WhitespaceTokenizer newTokenizer(final String text) {
+        final WhitespaceTokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader(text));
+        return tokenizer;
+    }
+
+    private static String minHash(final OnePermutationMinHashTokenFilter filter) throws IOException {
+        final CharTermAttribute termAttr = filter.addAttribute(CharTermAttribute.class);
+        filter.reset();
+        assertTrue(filter.incrementToken());
+        final String value = termAttr.toString();
+        assertFalse(filter.incrementToken());
+        filter.end();
+        filter.close();
+        return value;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.codelibs.minhash.analysis.ShingleMinHashTokenFilter.ShingleType;
+import org.codelibs.minhash.util.Murmur3;
+import org.codelibs.minhash.util.RollingHash;
+
+import junit.framework.TestCase;
+
+public class ShingleMinHashTokenFilterTest extends TestCase {
+
+    public void test_wordShingles() throws IOException {
+        for (final HashMode hashMode : HashMode.values()) {
+            final MinHashSketch sketch = new MinHashSketch(0, 32, hashMode);
+            final RollingHash rollingHash = new RollingHash(2);
+            for (final String word : "a b c d".split(" ")) {
+                if (rollingHash.add(Murmur3.hash64(0, word.toCharArray(), 0, word.length()))) {
+                    sketch.update(rollingHash.hash());
+                }
+            }
+            final long[] values = minHashValues(new WhitespaceTokenizer(), "a b c d", ShingleType.WORD, 2, hashMode);
+            assertTrue(hashMode.toString(), Arrays.equals(sketch.getMinHashValues(), values));
+        }
+
+        // the same words in a different order
+        assertFalse(Arrays.equals(minHashValues(new WhitespaceTokenizer(), "a b c", ShingleType.WORD, 2, HashMode.INDEPENDENT),
+                minHashValues(new WhitespaceTokenizer(), "c b a", ShingleType.WORD, 2, HashMode.INDEPENDENT)));
+        // the same shingles
+        assertTrue(Arrays.equals(minHashValues(new WhitespaceTokenizer(), "a b c a b", ShingleType.WORD, 2, HashMode.INDEPENDENT),
+                minHashValues(new WhitespaceTokenizer(), "c a b c", ShingleType.WORD, 2, HashMode.INDEPENDENT)));
+    }
+
+    public void test_charShingles() throws IOException {
+        final long[] values1 = minHashValues(new WhitespaceTokenizer(), "abc  de\nf", ShingleType.CHARACTER, 3, HashMode.DOUBLE_HASHING);
+        final long[] values2 = minHashValues(new KeywordTokenizer(), "abc de f", ShingleType.CHARACTER, 3, HashMode.DOUBLE_HASHING);
+        assertTrue(Arrays.equals(values1, values2));
+
+        final MinHashSketch sketch = new MinHashSketch(0, 32, HashMode.DOUBLE_HASHING);
+        final RollingHash rollingHash = new RollingHash(3);
+        for (final char c : "abc de f".toCharArray()) {
+            if (rollingHash.add(c)) {
+                sketch.update(rollingHash.hash());
+            }
+        }
+        assertTrue(Arrays.equals(sketch.getMinHashValues(), values1));
+    }
+
+    public void test_shortInput() throws IOException {
+        final long[] values1 = minHashValues(new KeywordTokenizer(), "ab", ShingleType.CHARACTER, 5, HashMode.INDEPENDENT);
+        final long[] values2 = minHashValues(new KeywordTokenizer(), "ba", ShingleType.CHARACTER, 5, HashMode.INDEPENDENT);
+        final long[] empty = minHashValues(new KeywordTokenizer(), "", ShingleType.CHARACTER, 5, HashMode.INDEPENDENT);
+        assertFalse(Arrays.equals(values1, values2));
+        assertFalse(Arrays.equals(values1, empty));
+        assertEquals(Long.MAX_VALUE, empty[0]);
+    }
+
+    public void test_reuse() throws IOException {
+        final Tokenizer tokenizer = new WhitespaceTokenizer();
+        final ShingleMinHashTokenFilter filter = new ShingleMinHashTokenFilter(tokenizer, ShingleType.WORD, 3, 0, 16, 1,
+                HashMode.UNIVERSAL);
+        final long[] values1 = minHashValues(filter, tokenizer, "a b c d e");
+        final long[] values2 = minHashValues(filter, tokenizer, "x y");
+        final long[] values3 = minHashValues(filter, tokenizer, "a b c d e");
+        assertFalse(Arrays.equals(values1, values2));
+        assertTrue(Arrays.equals(values1, values3));
+    }
+
+    public void test_seed() throws IOException {
+        final String text = "Fess is very powerful and easily deployable Enterprise Search Server.";
+        for (final ShingleType shingleType : ShingleType.values()) {
+            for (final HashMode hashMode : HashMode.values()) {
+                final Tokenizer tokenizer1 = new WhitespaceTokenizer();
+                final Tokenizer tokenizer2 = new WhitespaceTokenizer();
+                final long[] values1 = minHashValues(new ShingleMinHashTokenFilter(tokenizer1, shingleType, 2, 0, 32, 1, hashMode),
+                        tokenizer1, text);
+                final long[] values2 = minHashValues(new ShingleMinHashTokenFilter(tokenizer2, shingleType, 2, 12345, 32, 1, hashMode),
+                        tokenizer2, text);
+                assertFalse(shingleType + " " + hashMode, Arrays.equals(values1, values2));
+            }
+        }
+    }
+
+    private static long[] minHashValues(final Tokenizer tokenizer, final String text, final ShingleType shingleType, final int size,
+            final HashMode hashMode) throws IOException {
+        final ShingleMinHashTokenFilter filter = new ShingleMinHashTokenFilter(tokenizer, shingleType, size, 0, 32, 1, hashMode);
+        return minHashValues(filter, tokenizer, text);
+    }
+
+    private static long[] minHashValues(final ShingleMinHashTokenFilter filter, final Tokenizer tokenizer, final String text)
+            throws IOException {
+        tokenizer.setReader(new StringReader(text));
+        filter.reset();
+        assertTrue(filter.incrementToken());
+        final long[] values = filter.getMinHashValues().clone();
+        filter.end();
+        filter.close();
+        return values;
+    }
+}
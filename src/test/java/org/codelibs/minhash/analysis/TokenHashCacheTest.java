@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.codelibs.minhash.MinHash;
+import org.codelibs.minhash.util.Murmur3;
+
+import com.google.common.hash.HashFunction;
+
+import junit.framework.TestCase;
+
+public class TokenHashCacheTest extends TestCase {
+
+    public void test_get() {
+        final TokenHashCache cache = new TokenHashCache(5, 16, 1024 * 1024);
+        final char[] term = "hello".toCharArray();
+        final long[] values = cache.get(term, term.length);
+        for (int i = 0; i < 16; i++) {
+            assertEquals(Murmur3.hash64(5 + i, term, 0, term.length), values[i]);
+        }
+        assertSame(values, cache.get("hello world".toCharArray(), 5));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate(), 0.0001);
+        assertFalse(Arrays.equals(values, cache.get("hell".toCharArray(), 4)));
+
+        // not cached
+        final char[] longTerm = new char[TokenHashCache.MAX_TERM_LENGTH + 1];
+        Arrays.fill(longTerm, 'a');
+        final long[] longValues = cache.get(longTerm, longTerm.length);
+        assertNotSame(longValues, cache.get(longTerm, longTerm.length));
+        assertEquals(Murmur3.hash64(5, longTerm, 0, longTerm.length), longValues[0]);
+    }
+
+    public void test_capacity() {
+        final TokenHashCache cache = new TokenHashCache(0, 128, 1024 * 1024);
+        // 96 + 64 + 1024 bytes per entry
+        assertEquals(512, cache.getCapacity());
+        try {
+            new TokenHashCache(0, 128, 1000);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+
+        // a cache with one slot replaces the term
+        final TokenHashCache small = new TokenHashCache(0, 4, 300);
+        assertEquals(1, small.getCapacity());
+        final long[] a = small.get(new char[] { 'a' }, 1);
+        small.get(new char[] { 'b' }, 1);
+        final long[] a2 = small.get(new char[] { 'a' }, 1);
+        assertNotSame(a, a2);
+        assertTrue(Arrays.equals(a, a2));
+        assertEquals(0, small.getHitCount());
+    }
+
+    public void test_filter() throws Exception {
+        final String text = "a b c a b c d e f a a a b b b x y z";
+        final HashFunction[] hashFunctions = MinHash.createHashFunctions(3, 32);
+        final Analyzer expected = MinHash.createAnalyzer(3, 3, 32);
+        final Analyzer cached = MinHash.createAnalyzer(WhitespaceTokenizer::new, 3, new TokenHashCache(3, 32, 1024 * 1024));
+        final Analyzer cachedFunctions = MinHash.createAnalyzer(WhitespaceTokenizer::new, 3,
+                new TokenHashCache(hashFunctions, 1024 * 1024));
+        final byte[] minhash = MinHash.calculate(expected, text);
+        assertTrue(Arrays.equals(minhash, MinHash.calculate(cached, text)));
+        assertTrue(Arrays.equals(minhash, MinHash.calculate(cachedFunctions, text)));
+        // again with hits
+        assertTrue(Arrays.equals(minhash, MinHash.calculate(cached, text)));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> MinHash.calculate(cached, text)));
+            }
+            for (final Future<byte[]> future : futures) {
+                assertTrue(Arrays.equals(minhash, future.get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void test_reuse() throws IOException {
+        final Analyzer analyzer = MinHash.createAnalyzer(WhitespaceTokenizer::new, 1, new TokenHashCache(0, 64, 1024 * 1024));
+        final byte[] minhash1 = MinHash.calculate(analyzer, "x y z");
+        MinHash.calculate(analyzer, "p q r");
+        assertTrue(Arrays.equals(minhash1, MinHash.calculate(analyzer, "x y z")));
+    }
+}
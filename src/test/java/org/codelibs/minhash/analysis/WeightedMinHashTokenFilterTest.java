@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.analysis;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+
+import junit.framework.TestCase;
+
+public class WeightedMinHashTokenFilterTest extends TestCase {
+
+    public void test_orderIndependent() throws IOException {
+        final long[] values1 = minHashValues("a b a c b a", 64);
+        final long[] values2 = minHashValues("c a a b b a", 64);
+        for (int i = 0; i < values1.length; i++) {
+            assertEquals(values1[i], values2[i]);
+        }
+    }
+
+    public void test_weightedJaccard() throws IOException {
+        // weighted Jaccard = (10 + 10) / (10 + 30) = 0.5
+        final long[] values1 = minHashValues(repeat("x", 10) + repeat("y", 10), 1024);
+        final long[] values2 = minHashValues(repeat("x", 10) + repeat("y", 30), 1024);
+        assertEquals(0.5, similarity(values1, values2), 0.06);
+
+        // weighted Jaccard = (1 + 1) / (100 + 1 + 1) = 0.0196, Jaccard of sets = 2 / 3
+        final long[] values3 = minHashValues(repeat("x", 100) + "y z", 1024);
+        final long[] values4 = minHashValues("x y w", 1024);
+        assertEquals(0.02, similarity(values3, values4), 0.03);
+    }
+
+    public void test_jaccard() throws IOException {
+        // Jaccard = 2 / 6 without repeated terms
+        final long[] values1 = minHashValues("a b c d", 1024);
+        final long[] values2 = minHashValues("c d e f", 1024);
+        assertEquals(1.0 / 3, similarity(values1, values2), 0.06);
+    }
+
+    public void test_manyTerms() throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buf.append("t").append(i).append(' ');
+        }
+        final long[] values1 = minHashValues(buf.toString(), 256);
+        final long[] values2 = minHashValues(buf.toString(), 256);
+        assertEquals(1.0, similarity(values1, values2), 0.0);
+    }
+
+    public void test_constructor() {
+        try {
+            new WeightedMinHashTokenFilter(new WhitespaceTokenizer(), 0, 0, 1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // ignore
+        }
+    }
+
+    private static String repeat(final String term, final int count) {
+        return (term + " ").repeat(count);
+    }
+
+    private static double similarity(final long[] values1, final long[] values2) {
+        int count = 0;
+        for (int i = 0; i < values1.length; i++) {
+            if (values1[i] == values2[i]) {
+                count++;
+            }
+        }
+        return (double) count / values1.length;
+    }
+
+    private static long[] minHashValues(final String text, final int num) throws IOException {
+        final WhitespaceTokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader(text));
+        try (WeightedMinHashTokenFilter filter = new WeightedMinHashTokenFilter(tokenizer, 0, num, 1)) {
+            filter.reset();
+            assertTrue(filter.incrementToken());
+            return filter.getMinHashValues().clone();
+        }
+    }
+}
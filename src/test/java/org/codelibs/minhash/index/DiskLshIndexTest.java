@@ -0,0 +1,262 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import junit.framework.TestCase;
+
+public class DiskLshIndexTest extends TestCase {
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("lsh");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (Stream<Path> stream = Files.walk(dir)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public void test_addQuery() throws IOException {
+        try (DiskLshIndex index = DiskLshIndex.open(dir, 4, 8, 4)) {
+            index.add(1, new byte[] { 1, 2, 3, 4 });
+            index.add(2, new byte[] { 1, 9, 9, 9 });
+            // buffered and flushed documents are both searchable
+            assertTrue(Arrays.equals(new long[] { 1, 2 }, index.query(new byte[] { 1, 0, 0, 0 })));
+            index.flush();
+            index.add(3, new byte[] { 9, 9, 9, 9 });
+            index.add(4, new byte[] { 5, 6, 7, 8 });
+            assertEquals(1, index.getSegmentCount());
+            assertEquals(4, index.size());
+            assertTrue(Arrays.equals(new long[] { 1, 2 }, index.query(new byte[] { 1, 0, 0, 0 })));
+            assertTrue(Arrays.equals(new long[] { 2, 3 }, index.query(new byte[] { 0, 9, 0, 0 })));
+            assertTrue(Arrays.equals(new long[0], index.query(new byte[] { 0, 0, 0, 0 })));
+
+            final List<Hit> hits = index.query(new byte[] { 1, 9, 9, 8 }, 0.9f);
+            assertEquals(2, hits.size());
+            assertEquals(2, hits.get(0).id());
+            assertEquals(3, hits.get(1).id());
+            assertTrue(hits.get(0).similarity() > hits.get(1).similarity());
+        }
+    }
+
+    public void test_reopen() throws IOException {
+        try (DiskLshIndex index = DiskLshIndex.open(dir, 4, 8, 4)) {
+            index.add(1, new byte[] { 1, 2, 3, 4 });
+            index.flush();
+            index.add(2, new byte[] { 5, 6, 7, 8 });
+        }
+        try (DiskLshIndex index = DiskLshIndex.open(dir)) {
+            assertEquals(2, index.size());
+            assertTrue(Arrays.equals(new byte[] { 1, 2, 3, 4 }, index.get(1)));
+            assertTrue(Arrays.equals(new byte[] { 5, 6, 7, 8 }, index.get(2)));
+            assertTrue(Arrays.equals(new long[] { 2 }, index.query(new byte[] { 0, 6, 0, 0 })));
+        }
+        try {
+            DiskLshIndex.open(dir, 2, 8, 4).close();
+            fail();
+        } catch (final IOException e) {
+            // different parameters
+        }
+        // a file of an interrupted flush is removed
+        Files.write(dir.resolve("segment_100.lsh"), new byte[10]);
+        try (DiskLshIndex index = DiskLshIndex.open(dir, 4, 8, 4)) {
+            assertEquals(2, index.size());
+        }
+        assertFalse(Files.exists(dir.resolve("segment_100.lsh")));
+    }
+
+    public void test_replaceRemove() throws IOException {
+        try (DiskLshIndex index = DiskLshIndex.open(dir, 4, 8, 4)) {
+            index.add(1, new byte[] { 1, 2, 3, 4 });
+            index.add(2, new byte[] { 1, 9, 9, 9 });
+            index.flush();
+
+            index.add(1, new byte[] { 0, 0, 0, 8 });
+            assertTrue(index.remove(2));
+            assertFalse(index.remove(2));
+            assertFalse(index.remove(5));
+            assertNull(index.get(2));
+            assertEquals(1, index.size());
+            assertTrue(Arrays.equals(new long[0], index.query(new byte[] { 1, 5, 5, 5 })));
+            index.flush();
+            assertEquals(2, index.getSegmentCount());
+            assertNull(index.get(2));
+            assertTrue(Arrays.equals(new byte[] { 0, 0, 0, 8 }, index.get(1)));
+            assertEquals(1, index.size());
+            assertTrue(Arrays.equals(new long[0], index.query(new byte[] { 1, 5, 5, 5 })));
+            assertTrue(Arrays.equals(new long[] { 1 }, index.query(new byte[] { 0, 0, 0, 8 })));
+
+            // added again after deletion
+            index.add(2, new byte[] { 1, 9, 9, 9 });
+            index.flush();
+            assertTrue(Arrays.equals(new long[] { 2 }, index.query(new byte[] { 1, 5, 5, 5 })));
+            assertEquals(2, index.size());
+        }
+    }
+
+    public void test_merge() throws IOException {
+        final Random random = new Random(1);
+        final byte[][] signatures = new byte[200][];
+        try (DiskLshIndex index = DiskLshIndex.open(dir, 8, 8, 8)) {
+            index.setMaxBufferedDocs(10);
+            index.setMergeFactor(3);
+            for (int i = 0; i < signatures.length; i++) {
+                signatures[i] = new byte[8];
+                random.nextBytes(signatures[i]);
+                index.add(i, signatures[i]);
+                if (i % 7 == 0 && i > 0) {
+                    index.remove(i - 5);
+                    signatures[i - 5] = null;
+                }
+            }
+            index.forceMerge();
+            assertEquals(1, index.getSegmentCount());
+            assertSignatures(index, signatures);
+        }
+        try (Stream<Path> stream = Files.list(dir)) {
+            assertEquals(1, stream.filter(p -> p.getFileName().toString().endsWith(".lsh")).count());
+        }
+        try (DiskLshIndex index = DiskLshIndex.open(dir)) {
+            assertSignatures(index, signatures);
+        }
+    }
+
+    public void test_deletes() throws IOException {
+        final Random random = new Random(2);
+        final byte[][] signatures = new byte[2000][];
+        try (DiskLshIndex index = DiskLshIndex.open(dir, 8, 8, 8)) {
+            for (int i = 0; i < signatures.length; i++) {
+                signatures[i] = new byte[8];
+                random.nextBytes(signatures[i]);
+                index.add(i, signatures[i]);
+                if (i % 1000 == 999) {
+                    index.flush();
+                }
+            }
+            // new documents do not write deletions
+            assertEquals(0, countFiles(".del"));
+            assertEquals(2, index.getSegmentCount());
+
+            random.nextBytes(signatures[10]);
+            index.add(10, signatures[10]);
+            index.remove(1500);
+            signatures[1500] = null;
+            index.remove(5000);
+            index.flush();
+            assertEquals(2, countFiles(".del"));
+            assertSignatures(index, signatures);
+
+            // a new deletes file replaces the old one
+            index.remove(20);
+            signatures[20] = null;
+            index.flush();
+            assertEquals(2, countFiles(".del"));
+            assertSignatures(index, signatures);
+        }
+        try (DiskLshIndex index = DiskLshIndex.open(dir)) {
+            assertSignatures(index, signatures);
+            index.forceMerge();
+            assertEquals(1, index.getSegmentCount());
+            assertSignatures(index, signatures);
+        }
+        assertEquals(0, countFiles(".del"));
+        assertEquals(1, countFiles(".lsh"));
+    }
+
+    public void test_forceMerge_maxSegmentBytes() throws IOException {
+        final Random random = new Random(3);
+        final byte[][] signatures = new byte[200][];
+        try (DiskLshIndex index = DiskLshIndex.open(dir, 8, 8, 8)) {
+            index.setMaxBufferedDocs(30);
+            index.setMergeFactor(100);
+            for (int i = 0; i < signatures.length; i++) {
+                signatures[i] = new byte[8];
+                random.nextBytes(signatures[i]);
+                index.add(i, signatures[i]);
+            }
+            for (int i = 0; i < signatures.length; i += 4) {
+                index.remove(i);
+                signatures[i] = null;
+            }
+            // 50 documents in a segment: header (24 bytes) + 50 * (id + signature + 8 bands * (hash + ordinal))
+            index.setMaxSegmentBytes(24 + 50 * (8 + 8 + 8 * 12));
+            index.forceMerge();
+            assertEquals(3, index.getSegmentCount());
+            assertSignatures(index, signatures);
+        }
+        try (DiskLshIndex index = DiskLshIndex.open(dir)) {
+            assertEquals(3, index.getSegmentCount());
+            assertSignatures(index, signatures);
+        }
+        try (DiskLshIndex index = DiskLshIndex.open(dir)) {
+            index.setMaxSegmentBytes(0);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private long countFiles(final String suffix) throws IOException {
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream.filter(p -> p.getFileName().toString().endsWith(suffix)).count();
+        }
+    }
+
+    private void assertSignatures(final DiskLshIndex index, final byte[][] signatures) {
+        int size = 0;
+        for (int i = 0; i < signatures.length; i++) {
+            if (signatures[i] == null) {
+                assertNull(index.get(i));
+            } else {
+                size++;
+                assertTrue(Arrays.equals(signatures[i], index.get(i)));
+                final List<Hit> hits = index.query(signatures[i], 1.0f);
+                assertEquals(i, hits.get(0).id());
+            }
+        }
+        assertEquals(size, index.size());
+    }
+
+    public void test_closed() throws IOException {
+        final DiskLshIndex index = DiskLshIndex.open(dir, 4, 8, 4);
+        index.close();
+        try {
+            index.add(1, new byte[4]);
+            fail();
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+        try {
+            DiskLshIndex.open(dir, 8, 8, 4);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.index;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.codelibs.minhash.MinHash;
+
+import junit.framework.TestCase;
+
+public class LshIndexTest extends TestCase {
+
+    public void test_readBits() {
+        final byte[] data = new byte[] { (byte) 0b10110100, (byte) 0b01100011, (byte) 0xff, 0x01, 0, 0, 0, 0, (byte) 0x80 };
+        assertEquals(0b0, LshIndex.readBits(data, 0, 1));
+        assertEquals(0b10, LshIndex.readBits(data, 1, 2));
+        assertEquals(0b10110100, LshIndex.readBits(data, 0, 8));
+        assertEquals(0b0110001110110, LshIndex.readBits(data, 3, 13));
+        assertEquals(0x1ff63b4L, LshIndex.readBits(data, 0, 32));
+        assertEquals(0x01ff63b4L >>> 1, LshIndex.readBits(data, 1, 64));
+        assertEquals(0x800000000001ff63L, LshIndex.readBits(data, 8, 64));
+        assertEquals(1, LshIndex.readBits(data, 71, 1));
+    }
+
+    public void test_bandHash() {
+        final byte[] data1 = new byte[] { 1, 2, 3, 4 };
+        final byte[] data2 = new byte[] { 1, 2, 3, 5 };
+        assertEquals(LshIndex.bandHash(data1, 0, 8), LshIndex.bandHash(data2, 0, 8));
+        assertEquals(LshIndex.bandHash(data1, 2, 8), LshIndex.bandHash(data2, 2, 8));
+        assertFalse(LshIndex.bandHash(data1, 3, 8) == LshIndex.bandHash(data2, 3, 8));
+        // the same bits in different bands are different buckets
+        assertFalse(LshIndex.bandHash(new byte[] { 1, 1 }, 0, 8) == LshIndex.bandHash(new byte[] { 1, 1 }, 1, 8));
+    }
+
+    public void test_addQueryRemove() {
+        final LshIndex index = new LshIndex(4, 8);
+        index.add(1, new byte[] { 1, 2, 3, 4 });
+        index.add(2, new byte[] { 1, 9, 9, 9 });
+        index.add(3, new byte[] { 9, 9, 9, 9 });
+        index.add(4, new byte[] { 5, 6, 7, 8 });
+        assertEquals(4, index.size());
+
+        assertTrue(Arrays.equals(new long[] { 1, 2 }, index.query(new byte[] { 1, 0, 0, 0 })));
+        assertTrue(Arrays.equals(new long[] { 2, 3 }, index.query(new byte[] { 0, 9, 0, 0 })));
+        assertTrue(Arrays.equals(new long[0], index.query(new byte[] { 0, 0, 0, 0 })));
+
+        assertTrue(index.remove(2));
+        assertFalse(index.remove(2));
+        assertNull(index.get(2));
+        assertEquals(3, index.size());
+        assertTrue(Arrays.equals(new long[] { 1 }, index.query(new byte[] { 1, 0, 0, 0 })));
+
+        // replace
+        index.add(1, new byte[] { 0, 0, 0, 8 });
+        assertTrue(Arrays.equals(new long[0], index.query(new byte[] { 1, 3, 3, 3 })));
+        assertTrue(Arrays.equals(new long[] { 1, 4 }, index.query(new byte[] { 0, 0, 0, 8 })));
+        assertTrue(Arrays.equals(new byte[] { 0, 0, 0, 8 }, index.get(1)));
+    }
+
+    public void test_query_withThreshold() throws IOException {
+        final Analyzer analyzer = MinHash.createAnalyzer(1, 0, 128);
+        final LshIndex index = new LshIndex(16, 8);
+        final String[] texts = { "Fess is very powerful and easily deployable Enterprise Search Server.",
+                "Fess is very powerful and easily deployable Search Server.",
+                "Solr is the popular, blazing fast open source enterprise search platform",
+                "Elasticsearch is a distributed, RESTful search and analytics engine" };
+        for (int i = 0; i < texts.length; i++) {
+            index.add(i, MinHash.calculate(analyzer, texts[i]));
+        }
+
+        final byte[] query = MinHash.calculate(analyzer, texts[0]);
+        final List<Hit> hits = index.query(query, 0.9f);
+        assertEquals(2, hits.size());
+        assertEquals(new Hit(0, 1.0f), hits.get(0));
+        assertEquals(1, hits.get(1).id());
+        assertEquals(0.953125f, hits.get(1).similarity());
+    }
+
+    public void test_query_recall() {
+        final Random random = new Random(1);
+        final LshIndex index = new LshIndex(16, 16);
+        final byte[][] signatures = new byte[2000][];
+        for (int i = 0; i < signatures.length; i++) {
+            signatures[i] = new byte[32];
+            random.nextBytes(signatures[i]);
+            index.add(i, signatures[i]);
+        }
+
+        int found = 0;
+        for (int i = 0; i < 100; i++) {
+            // flip 5% of bits
+            final byte[] query = signatures[i].clone();
+            for (int j = 0; j < 13; j++) {
+                final int bit = random.nextInt(256);
+                query[bit / 8] ^= 1 << bit % 8;
+            }
+            final List<Hit> hits = index.query(query, 0.9f);
+            if (!hits.isEmpty() && hits.get(0).id() == i) {
+                found++;
+            }
+            // random signatures are not candidates in most cases
+            assertTrue(index.query(query).length < 20);
+        }
+        assertTrue(found > 95);
+    }
+
+    public void test_invalidArguments() {
+        try {
+            new LshIndex(0, 8);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+        final LshIndex index = new LshIndex(4, 8);
+        try {
+            index.add(1, new byte[3]);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.codelibs.minhash.MinHash;
+
+import junit.framework.TestCase;
+
+public class MultiIndexHashingTest extends TestCase {
+
+    public void test_addRemove() {
+        final MultiIndexHashing index = new MultiIndexHashing(4, 4);
+        index.add(1, new byte[] { 1, 2, 3, 4 });
+        index.add(2, new byte[] { 1, 2, 3, 5 });
+        index.add(3, new byte[] { -1, -1, -1, -1 });
+        assertEquals(3, index.size());
+
+        List<Hit> hits = index.rangeQuery(new byte[] { 1, 2, 3, 4 }, 1);
+        assertEquals(2, hits.size());
+        assertEquals(new Hit(1, 1.0f), hits.get(0));
+        assertEquals(new Hit(2, 31f / 32f), hits.get(1));
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertNull(index.get(1));
+        hits = index.rangeQuery(new byte[] { 1, 2, 3, 4 }, 1);
+        assertEquals(1, hits.size());
+        assertEquals(2, hits.get(0).id());
+
+        // replace
+        index.add(2, new byte[] { 0, 0, 0, 0 });
+        assertEquals(0, index.rangeQuery(new byte[] { 1, 2, 3, 5 }, 1).size());
+        assertEquals(2, index.topK(new byte[] { 0, 0, 0, 1 }, 1).get(0).id());
+        assertEquals(3, index.topK(new byte[] { -1, -1, -1, -2 }, 1).get(0).id());
+        assertEquals(2, index.topK(new byte[] { 0, 0, 0, 1 }, 10).size());
+    }
+
+    public void test_randomSignatures() {
+        final Random random = new Random(1);
+        final byte[][] signatures = new byte[2000][];
+        final MultiIndexHashing index = new MultiIndexHashing(16, 8);
+        final byte[] base = new byte[16];
+        random.nextBytes(base);
+        for (int i = 0; i < signatures.length; i++) {
+            signatures[i] = base.clone();
+            // flip a few bits to make near neighbors
+            for (int j = random.nextInt(40); j > 0; j--) {
+                final int bit = random.nextInt(128);
+                signatures[i][bit / 8] ^= 1 << bit % 8;
+            }
+            index.add(i, signatures[i]);
+        }
+
+        for (int t = 0; t < 20; t++) {
+            final byte[] query = signatures[random.nextInt(signatures.length)].clone();
+            query[random.nextInt(16)] ^= (byte) random.nextInt(256);
+            final List<Hit> expected = new ArrayList<>();
+            for (int i = 0; i < signatures.length; i++) {
+                expected.add(new Hit(i, MinHash.compare(query, signatures[i])));
+            }
+            expected.sort(Comparator.comparing(Hit::similarity).reversed().thenComparing(Hit::id));
+
+            assertEquals(expected.subList(0, 10), index.topK(query, 10));
+            assertEquals(expected.subList(0, 1), index.topK(query, 1));
+
+            final float threshold = 0.85f;
+            final List<Hit> range = index.query(query, threshold);
+            assertEquals(expected.stream().filter(h -> h.similarity() >= threshold).toList(), range);
+        }
+        assertEquals(signatures.length, index.topK(new byte[16], signatures.length + 1).size());
+    }
+
+    public void test_invalidArguments() {
+        try {
+            new MultiIndexHashing(16, 2);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // substrings of 64 bits
+        }
+        final MultiIndexHashing index = new MultiIndexHashing(8, 2);
+        index.add(1, new byte[8]);
+        assertEquals(1, index.rangeQuery(new byte[] { 0, 0, 0, 0, 0, 0, 0, (byte) 0x80 }, 1).size());
+        try {
+            index.add(2, new byte[4]);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            index.topK(new byte[8], 0);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
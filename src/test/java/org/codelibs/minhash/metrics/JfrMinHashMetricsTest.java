@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.metrics;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.codelibs.minhash.MinHash;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+public class JfrMinHashMetricsTest extends TestCase {
+
+    public void test_events() throws Exception {
+        final Path file = Files.createTempFile("minhash", ".jfr");
+        try (JfrMinHashMetrics metrics = new JfrMinHashMetrics(); Recording recording = new Recording()) {
+            recording.enable("org.codelibs.minhash.Signature");
+            recording.enable("org.codelibs.minhash.Calculate");
+            recording.enable("org.codelibs.minhash.Compare").withPeriod(Duration.ofMillis(100));
+            MinHashInstrumentation.setMetrics(metrics);
+            recording.start();
+            final Analyzer analyzer = MinHash.createAnalyzer(1, 0, 128);
+            final byte[] minhash = MinHash.calculate(analyzer, "a b c d e");
+            for (int i = 0; i < 10; i++) {
+                MinHash.compare(minhash, minhash);
+            }
+            Thread.sleep(300);
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            MinHashInstrumentation.setMetrics(null);
+        }
+        try {
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            final RecordedEvent signature = events.stream()
+                    .filter(e -> "org.codelibs.minhash.Signature".equals(e.getEventType().getName()))
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(5, signature.getInt("numOfTokens"));
+            assertEquals(16, signature.getInt("numOfBytes"));
+            assertEquals(1, events.stream().filter(e -> "org.codelibs.minhash.Calculate".equals(e.getEventType().getName())).count());
+            assertEquals(10, events.stream()
+                    .filter(e -> "org.codelibs.minhash.Compare".equals(e.getEventType().getName()))
+                    .mapToLong(e -> e.getLong("count"))
+                    .sum());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.codelibs.minhash.MinHash;
+
+import junit.framework.TestCase;
+
+public class MinHashInstrumentationTest extends TestCase {
+
+    private final List<long[]> signatures = new ArrayList<>();
+
+    private final List<long[]> calculations = new ArrayList<>();
+
+    private int compareCount;
+
+    @Override
+    protected void setUp() throws Exception {
+        MinHashInstrumentation.setMetrics(new MinHashMetrics() {
+            @Override
+            public void signatureCreated(final int numOfTokens, final long hashNanos, final int numOfBytes, final long packNanos) {
+                signatures.add(new long[] { numOfTokens, hashNanos, numOfBytes, packNanos });
+            }
+
+            @Override
+            public void calculated(final int numOfBytes, final long nanos) {
+                calculations.add(new long[] { numOfBytes, nanos });
+            }
+
+            @Override
+            public void compared(final int numOfBytes) {
+                compareCount++;
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        MinHashInstrumentation.setMetrics(null);
+    }
+
+    public void test_calculate() throws IOException {
+        final Analyzer analyzer = MinHash.createAnalyzer(1, 0, 128);
+        final byte[] minhash = MinHash.calculate(analyzer, "a b c d e");
+        assertEquals(1, signatures.size());
+        assertEquals(5, signatures.get(0)[0]);
+        assertTrue(signatures.get(0)[1] >= 0);
+        assertEquals(16, signatures.get(0)[2]);
+        assertTrue(signatures.get(0)[3] >= 0);
+        assertEquals(1, calculations.size());
+        assertEquals(16, calculations.get(0)[0]);
+        assertTrue(calculations.get(0)[1] >= signatures.get(0)[1]);
+
+        MinHash.compare(minhash, minhash);
+        MinHash.compare(MinHash.calculate(analyzer, "x"), minhash);
+        MinHash.isSimilar(minhash, minhash, 0.9f);
+        MinHash.isWithinDistance(minhash, minhash, 3);
+        assertEquals(4, compareCount);
+        assertEquals(2, signatures.size());
+        assertEquals(1, signatures.get(1)[0]);
+
+        MinHash.calculateCharGrams("abcdef", 3, 0, 64, 1);
+        assertEquals(3, signatures.size());
+        assertEquals(4, signatures.get(2)[0]);
+        assertEquals(8, signatures.get(2)[2]);
+        assertEquals(3, calculations.size());
+    }
+
+    public void test_off() throws IOException {
+        MinHashInstrumentation.setMetrics(null);
+        assertNull(MinHashInstrumentation.getMetrics());
+        final byte[] minhash = MinHash.calculate(MinHash.createAnalyzer(1, 0, 128), "a b c d e");
+        MinHash.compare(minhash, minhash);
+        assertEquals(0, signatures.size());
+        assertEquals(0, calculations.size());
+        assertEquals(0, compareCount);
+    }
+}
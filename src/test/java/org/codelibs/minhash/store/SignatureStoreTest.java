@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.codelibs.minhash.MinHash;
+
+import junit.framework.TestCase;
+
+public class SignatureStoreTest extends TestCase {
+
+    private Path path;
+
+    @Override
+    protected void setUp() throws Exception {
+        path = Files.createTempFile("signatures", ".store");
+        Files.delete(path);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(path);
+    }
+
+    public void test_appendAndGet() throws IOException {
+        final Random random = new Random(1);
+        final byte[][] signatures = new byte[100][20];
+        // 3 signatures per segment
+        try (SignatureStore store = new SignatureStore(path, 20, 64)) {
+            for (int i = 0; i < signatures.length; i++) {
+                random.nextBytes(signatures[i]);
+                assertEquals(i, store.append(signatures[i]));
+            }
+            assertEquals(100, store.size());
+            for (int i = 0; i < signatures.length; i++) {
+                assertEquals(MinHash.toBinaryString(signatures[i]), MinHash.toBinaryString(store.get(i)));
+                final ByteBuffer buffer = store.slice(i);
+                assertEquals(20, buffer.remaining());
+                assertTrue(buffer.isReadOnly());
+                assertEquals(signatures[i][19], buffer.get(19));
+            }
+            for (int i = 0; i < signatures.length; i++) {
+                for (int j = 0; j < signatures.length; j += 7) {
+                    assertEquals(MinHash.compare(signatures[i], signatures[j]), store.compare(i, j));
+                    assertEquals(MinHash.compare(signatures[i], signatures[j]), store.compare(i, signatures[j]));
+                }
+            }
+
+            try {
+                store.get(100);
+                fail();
+            } catch (final IndexOutOfBoundsException e) {
+                // ignore
+            }
+            try {
+                store.append(new byte[10]);
+                fail();
+            } catch (final IllegalArgumentException e) {
+                // ignore
+            }
+        }
+        // 34 segments of 3 signatures
+        assertEquals(32 + 34 * 60, Files.size(path));
+
+        // reopen
+        try (SignatureStore store = new SignatureStore(path, 20, 64)) {
+            assertEquals(100, store.size());
+            assertEquals(MinHash.toBinaryString(signatures[99]), MinHash.toBinaryString(store.get(99)));
+            final byte[] signature = new byte[20];
+            assertEquals(100, store.append(signature));
+            assertEquals(MinHash.compare(signatures[5], signature), store.compare(5, 100));
+        }
+    }
+
+    public void test_reopen_fileSize() throws IOException {
+        try (SignatureStore store = SignatureStore.open(path, 16)) {
+            for (int i = 0; i < 1000; i++) {
+                store.append(new byte[16]);
+            }
+        }
+        final long fileSize = Files.size(path);
+        assertTrue(fileSize >= 32 + 1000 * 16);
+        assertTrue(fileSize < 1 << 20);
+
+        for (int i = 0; i < 3; i++) {
+            try (SignatureStore store = SignatureStore.open(path, 16)) {
+                assertEquals(1000, store.size());
+            }
+            assertEquals(fileSize, Files.size(path));
+        }
+
+        // a file without the unused area
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(32 + 1000 * 16);
+        }
+        try (SignatureStore store = SignatureStore.open(path, 16)) {
+            assertEquals(1000, store.size());
+        }
+        assertEquals(32 + 1000 * 16, Files.size(path));
+        try (SignatureStore store = SignatureStore.open(path, 16)) {
+            assertEquals(1000, store.append(new byte[16]));
+            assertEquals(1001, store.size());
+        }
+        assertTrue(Files.size(path) < 1 << 20);
+    }
+
+    public void test_open_invalid() throws IOException {
+        try (SignatureStore store = SignatureStore.open(path, 16)) {
+            store.append(new byte[16]);
+        }
+        try {
+            SignatureStore.open(path, 32);
+            fail();
+        } catch (final IOException e) {
+            // ignore
+        }
+
+        Files.write(path, new byte[64]);
+        try {
+            SignatureStore.open(path, 16);
+            fail();
+        } catch (final IOException e) {
+            // ignore
+        }
+
+        try {
+            SignatureStore.open(path, 0);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // ignore
+        }
+    }
+
+    public void test_close() throws IOException {
+        final SignatureStore store = SignatureStore.open(path, 8);
+        store.append(new byte[8]);
+        store.close();
+        store.close();
+        try {
+            store.append(new byte[8]);
+            fail();
+        } catch (final IOException e) {
+            // ignore
+        }
+        try {
+            store.get(0);
+            fail();
+        } catch (final IllegalStateException e) {
+            // ignore
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package org.codelibs.minhash.util;
 
+import java.util.Random;
+
 import junit.framework.TestCase;
 
 public class FastBitSetTest extends TestCase {
@@ -267,4 +269,81 @@ public class FastBitSetTest extends TestCase {
         FastBitSet bitSet3 = new FastBitSet(1);
         assertEquals(1, bitSet3.nbit);
     }
+
+    public void test_setBits() {
+        final Random random = new Random(1);
+        for (int n = 0; n < 1000; n++) {
+            final int size = random.nextInt(200) + 1;
+            final FastBitSet expected = new FastBitSet(size);
+            final FastBitSet actual = new FastBitSet(size);
+            random.nextBytes(expected.data);
+            System.arraycopy(expected.data, 0, actual.data, 0, expected.data.length);
+
+            final int pos = random.nextInt(size);
+            final int nbits = random.nextInt(65);
+            final long value = random.nextLong();
+            for (int i = 0; i < nbits; i++) {
+                expected.set(pos + i, (value >>> i & 1L) == 1L);
+            }
+            actual.setBits(pos, value, nbits);
+            assertEquals(java.util.Arrays.toString(expected.data), java.util.Arrays.toString(actual.data));
+        }
+
+        final FastBitSet bitSet = new FastBitSet(8);
+        try {
+            bitSet.setBits(0, 0L, 65);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // ignore
+        }
+    }
+
+    public void test_getBits() {
+        final Random random = new Random(2);
+        for (int n = 0; n < 1000; n++) {
+            final byte[] data = new byte[random.nextInt(20) + 1];
+            random.nextBytes(data);
+            final int nbits = random.nextInt(Math.min(64, data.length * 8) + 1);
+            final int pos = random.nextInt(data.length * 8 - nbits + 1);
+            long expected = 0L;
+            for (int i = 0; i < nbits; i++) {
+                final int index = pos + i;
+                expected |= (long) (data[index / 8] >>> index % 8 & 1) << i;
+            }
+            assertEquals(expected, FastBitSet.getBits(data, pos, nbits));
+        }
+    }
+
+    public void test_or_xor_cardinality() {
+        final Random random = new Random(3);
+        final FastBitSet bitSet1 = new FastBitSet(100);
+        final FastBitSet bitSet2 = new FastBitSet(100);
+        random.nextBytes(bitSet1.data);
+        random.nextBytes(bitSet2.data);
+        final byte[] data1 = bitSet1.data.clone();
+        final byte[] data2 = bitSet2.data.clone();
+
+        int expected = 0;
+        for (final byte b : data1) {
+            expected += Integer.bitCount(b & 0xff);
+        }
+        assertEquals(expected, bitSet1.cardinality());
+
+        bitSet1.or(bitSet2);
+        for (int i = 0; i < data1.length; i++) {
+            assertEquals((byte) (data1[i] | data2[i]), bitSet1.data[i]);
+        }
+
+        bitSet1.xor(bitSet2);
+        for (int i = 0; i < data1.length; i++) {
+            assertEquals((byte) ((data1[i] | data2[i]) ^ data2[i]), bitSet1.data[i]);
+        }
+
+        try {
+            bitSet1.or(new FastBitSet(8));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // ignore
+        }
+    }
 }
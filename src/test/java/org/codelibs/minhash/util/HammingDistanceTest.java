@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.util;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class HammingDistanceTest extends TestCase {
+
+    public void test_distance() {
+        assertEquals(0, HammingDistance.distance(new byte[0], new byte[0]));
+        assertEquals(0, HammingDistance.distance(new byte[] { 0x5 }, new byte[] { 0x5 }));
+        assertEquals(8, HammingDistance.distance(new byte[] { (byte) 0xff }, new byte[] { 0x0 }));
+        assertEquals(72, HammingDistance.distance(new byte[] { -1, -1, -1, -1, -1, -1, -1, -1, -1 }, new byte[9]));
+        assertEquals(2, HammingDistance.distance(new byte[] { 0, 0, 0, 0, 0, 0, 0, 1, 1 }, new byte[9]));
+    }
+
+    public void test_distance_random() {
+        final Random random = new Random(1);
+        for (int length = 0; length < 300; length++) {
+            final byte[] data1 = new byte[length];
+            final byte[] data2 = new byte[length];
+            random.nextBytes(data1);
+            random.nextBytes(data2);
+            assertEquals(referenceDistance(data1, 0, data2, 0, length), HammingDistance.distance(data1, data2));
+        }
+    }
+
+    public void test_distance_bounded() {
+        final Random random = new Random(4);
+        for (int length = 0; length < 100; length++) {
+            final byte[] data1 = new byte[length];
+            final byte[] data2 = new byte[length];
+            random.nextBytes(data1);
+            random.nextBytes(data2);
+            final int expected = referenceDistance(data1, 0, data2, 0, length);
+            for (final int maxDistance : new int[] { 0, expected - 1, expected, expected + 1, Integer.MAX_VALUE }) {
+                final int distance = HammingDistance.distance(data1, data2, maxDistance);
+                if (expected <= maxDistance) {
+                    assertEquals(expected, distance);
+                } else {
+                    assertTrue(distance > maxDistance);
+                }
+            }
+        }
+    }
+
+    public void test_distance_withOffset() {
+        final Random random = new Random(2);
+        final byte[] data1 = new byte[200];
+        final byte[] data2 = new byte[200];
+        random.nextBytes(data1);
+        random.nextBytes(data2);
+        for (int offset = 0; offset < 20; offset++) {
+            for (final int length : new int[] { 0, 1, 7, 8, 9, 31, 32, 33, 64, 100, 150 }) {
+                assertEquals(referenceDistance(data1, offset, data2, 19 - offset, length),
+                        HammingDistance.distance(data1, offset, data2, 19 - offset, length));
+                assertEquals(referenceDistance(data1, offset, data2, 19 - offset, length),
+                        HammingDistance.scalarDistance(data1, offset, data2, 19 - offset, length));
+            }
+        }
+    }
+
+    public void test_vectorDistance() {
+        if (!HammingDistance.isVectorized()) {
+            return;
+        }
+        final Random random = new Random(3);
+        for (int length = 0; length < 300; length += 7) {
+            final byte[] data1 = new byte[length + 3];
+            final byte[] data2 = new byte[length + 3];
+            random.nextBytes(data1);
+            random.nextBytes(data2);
+            assertEquals(referenceDistance(data1, 3, data2, 1, length), HammingDistance.distance(data1, 3, data2, 1, length));
+        }
+    }
+
+    private static int referenceDistance(final byte[] data1, final int offset1, final byte[] data2, final int offset2, final int length) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += Integer.bitCount((data1[offset1 + i] ^ data2[offset2 + i]) & 0xFF);
+        }
+        return count;
+    }
+}
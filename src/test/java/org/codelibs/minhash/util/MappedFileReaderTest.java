@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import junit.framework.TestCase;
+
+public class MappedFileReaderTest extends TestCase {
+
+    private static final String TEXT = "Fess is very powerful and easily deployable Enterprise Search Server. 全文検索 サーバー 🍣🍺 end";
+
+    public void test_read() throws IOException {
+        final Path path = Files.createTempFile("minhash", ".txt");
+        try {
+            for (final Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.UTF_16LE }) {
+                Files.writeString(path, TEXT, charset);
+                for (long windowSize = 8; windowSize < 300; windowSize += 7) {
+                    for (final int bufferSize : new int[] { 1, 2, 5, 1024 }) {
+                        try (Reader reader = new MappedFileReader(path, charset, windowSize)) {
+                            assertEquals(charset + " " + windowSize + " " + bufferSize, TEXT, readAll(reader, bufferSize));
+                        }
+                    }
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    public void test_read_empty() throws IOException {
+        final Path path = Files.createTempFile("minhash", ".txt");
+        try (Reader reader = new MappedFileReader(path, StandardCharsets.UTF_8)) {
+            assertEquals(-1, reader.read());
+            assertEquals(-1, reader.read(new char[10], 0, 10));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    public void test_read_malformed() throws IOException {
+        final Path path = Files.createTempFile("minhash", ".txt");
+        try {
+            final byte[] data = { 'a', (byte) 0xff, 'b', (byte) 0xe5 };
+            Files.write(path, data);
+            try (Reader reader = new MappedFileReader(path, StandardCharsets.UTF_8, 8)) {
+                assertEquals(new String(data, StandardCharsets.UTF_8), readAll(reader, 1024));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    public void test_close() throws IOException {
+        final Path path = Files.createTempFile("minhash", ".txt");
+        try {
+            Files.writeString(path, TEXT);
+            final Reader reader = new MappedFileReader(path, StandardCharsets.UTF_8);
+            reader.close();
+            try {
+                reader.read();
+                fail();
+            } catch (final IOException e) {
+                // ignore
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static String readAll(final Reader reader, final int bufferSize) throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        final char[] chars = new char[bufferSize];
+        int n;
+        while ((n = reader.read(chars, 0, bufferSize)) != -1) {
+            assertTrue(n > 0);
+            buf.append(chars, 0, n);
+        }
+        return buf.toString();
+    }
+}
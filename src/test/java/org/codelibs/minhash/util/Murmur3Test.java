@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import junit.framework.TestCase;
+
+public class Murmur3Test extends TestCase {
+
+    public void test_hash64_sameAsGuava() {
+        final Random random = new Random(1);
+        final int[] seeds = { 0, 1, 100, -1, Integer.MIN_VALUE, Integer.MAX_VALUE };
+        for (int length = 0; length < 40; length++) {
+            final char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) random.nextInt(Character.MAX_VALUE + 1);
+            }
+            final String text = new String(chars);
+            for (final int seed : seeds) {
+                assertEquals(Hashing.murmur3_128(seed).hashUnencodedChars(text).asLong(), Murmur3.hash64(seed, chars, 0, length));
+            }
+        }
+    }
+
+    public void test_hash64_withOffset() {
+        final char[] chars = "xxFess is very powerfulyy".toCharArray();
+        assertEquals(Hashing.murmur3_128(3).hashUnencodedChars("Fess is very powerful").asLong(), Murmur3.hash64(3, chars, 2, 21));
+    }
+
+    public void test_hash128_sameAsGuava() {
+        final String[] texts = { "", "a", "hello", "hello world", "Fess is very powerful and easily deployable Enterprise Search Server." };
+        final long[] out = new long[2];
+        for (final String text : texts) {
+            for (int seed = 0; seed < 5; seed++) {
+                final HashCode hashCode = Hashing.murmur3_128(seed).hashUnencodedChars(text);
+                final ByteBuffer buffer = ByteBuffer.wrap(hashCode.asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+                Murmur3.hash128(seed, text.toCharArray(), 0, text.length(), out);
+                assertEquals(buffer.getLong(0), out[0]);
+                assertEquals(buffer.getLong(8), out[1]);
+                Murmur3.hash128(seed, new StringBuilder(text), out);
+                assertEquals(buffer.getLong(0), out[0]);
+                assertEquals(buffer.getLong(8), out[1]);
+            }
+        }
+    }
+
+    public void test_fmix64() {
+        assertEquals(0L, Murmur3.fmix64(0L));
+        assertFalse(Murmur3.fmix64(1L) == Murmur3.fmix64(2L));
+    }
+}
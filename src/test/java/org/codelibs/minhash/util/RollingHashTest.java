@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.minhash.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class RollingHashTest extends TestCase {
+
+    public void test_rolling() {
+        final String text = "abcdefgabcdxyz";
+        final RollingHash rollingHash = new RollingHash(4);
+        for (int i = 0; i < text.length(); i++) {
+            final boolean full = rollingHash.add(text.charAt(i));
+            assertEquals(i >= 3, full);
+            assertEquals(Math.min(i + 1, 4), rollingHash.size());
+            if (full) {
+                // the same as hashing the window from scratch
+                final RollingHash expected = new RollingHash(4);
+                for (int j = i - 3; j <= i; j++) {
+                    expected.add(text.charAt(j));
+                }
+                assertEquals(expected.hash(), rollingHash.hash());
+            }
+        }
+        rollingHash.clear();
+        assertEquals(0, rollingHash.size());
+        assertFalse(rollingHash.isFull());
+    }
+
+    public void test_distinct() {
+        final RollingHash rollingHash = new RollingHash(2);
+        rollingHash.add('a');
+        final long partial = rollingHash.hash();
+        rollingHash.add('b');
+        final long ab = rollingHash.hash();
+        rollingHash.clear();
+        rollingHash.add('b');
+        rollingHash.add('a');
+        assertFalse(ab == rollingHash.hash());
+        assertFalse(partial == ab);
+
+        final Set<Long> hashes = new HashSet<>();
+        final RollingHash bigrams = new RollingHash(2);
+        for (int c1 = 0; c1 < 300; c1++) {
+            for (int c2 = 0; c2 < 300; c2++) {
+                bigrams.clear();
+                bigrams.add(c1);
+                bigrams.add(c2);
+                hashes.add(bigrams.hash());
+            }
+        }
+        assertEquals(300 * 300, hashes.size());
+    }
+
+    public void test_invalidSize() {
+        try {
+            new RollingHash(0);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}